@@ -0,0 +1,22 @@
+package com.siupo.restaurant.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Pool cố định: số worker gửi mail cũng là số kết nối SMTP tối đa cùng lúc
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mailDeliveryExecutor(@Value("${app.mail.workers:4}") int workers) {
+        return Executors.newFixedThreadPool(workers);
+    }
+}
@@ -0,0 +1,50 @@
+package com.siupo.restaurant.config;
+
+import com.siupo.restaurant.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Các bảng dưới đây trước dùng AUTO_INCREMENT, khi chuyển sang id_generators cần đẩy next_val
+ * vượt qua id lớn nhất hiện có (cộng thêm 1 khoảng allocation của pooled optimizer) để không trùng khoá.
+ * Chạy lúc khởi tạo context, trước khi có request nào insert vào các bảng này, và sau entityManagerFactory
+ * để Hibernate (ddl-auto) đã tạo các bảng trên schema mới.
+ */
+@Slf4j
+@Configuration
+@DependsOn("entityManagerFactory")
+public class IdGeneratorInitializer {
+    private static final List<String> TABLES = List.of(
+            IdGenerators.ORDER_ITEMS,
+            IdGenerators.CART_ITEMS,
+            IdGenerators.COMBO_ITEMS,
+            IdGenerators.IMAGES
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignGeneratorsWithExistingIds() {
+        for (String table : TABLES) {
+            // Tên bảng là hằng số nội bộ, không lấy từ input
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            // Row alias thay cho VALUES() (deprecated từ MySQL 8.0.20)
+            jdbcTemplate.update(
+                    "INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.PK_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ") " +
+                    "VALUES (?, ?) AS aligned " +
+                    "ON DUPLICATE KEY UPDATE " + IdGenerators.VALUE_COLUMN + " = GREATEST(" +
+                    IdGenerators.VALUE_COLUMN + ", aligned." + IdGenerators.VALUE_COLUMN + ")",
+                    table, (maxId != null ? maxId : 0L) + IdGenerators.ALLOCATION_SIZE + 1);
+        }
+        log.info("Aligned table-based id generators for {}", TABLES);
+    }
+}
@@ -0,0 +1,26 @@
+package com.siupo.restaurant.config;
+
+import com.siupo.restaurant.service.orderAtTable.KitchenOrderStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+@ConditionalOnProperty(name = "app.kitchen.stream.redis-enabled", havingValue = "true")
+public class KitchenOrderStreamRedisConfig {
+    @Bean
+    public RedisMessageListenerContainer kitchenOrderStreamListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                             KitchenOrderStream kitchenOrderStream) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> kitchenOrderStream.onRemoteEvent(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(KitchenOrderStream.CHANNEL));
+        return container;
+    }
+}
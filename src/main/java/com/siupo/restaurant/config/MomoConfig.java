@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "momo")
 @Data
@@ -14,4 +16,10 @@ public class MomoConfig {
     private String endpoint;
     private String redirectUrl;
     private String ipnUrl;
+
+    // HTTP client dùng chung cho các lời gọi tới MoMo
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(15);
+    private int maxConcurrentRequests = 50;
+    private Duration acquireTimeout = Duration.ofSeconds(2);
 }
@@ -0,0 +1,26 @@
+package com.siupo.restaurant.config;
+
+import com.siupo.restaurant.security.jwt.PrincipalCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+@ConditionalOnProperty(name = "app.security.principal-cache.redis-enabled", havingValue = "true")
+public class PrincipalCacheRedisConfig {
+    @Bean
+    public RedisMessageListenerContainer principalCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                         PrincipalCache principalCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> principalCache.evictLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(PrincipalCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,25 @@
+package com.siupo.restaurant.config;
+
+import com.siupo.restaurant.service.review.ReviewService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Dựng lại rating summary từ bảng reviews, chỉ chạy khi bật cờ một lần (ví dụ sau khi migrate dữ liệu cũ).
+ * Khi vận hành bình thường summary được cộng dồn bởi ProductRepository.addRating, không cần dựng lại mỗi lần khởi động.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.review.rebuild-rating-summaries", havingValue = "true")
+public class RatingSummaryRebuildRunner implements CommandLineRunner {
+    private final ReviewService reviewService;
+
+    public RatingSummaryRebuildRunner(ReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    @Override
+    public void run(String... args) {
+        reviewService.rebuildRatingSummaries();
+    }
+}
@@ -0,0 +1,26 @@
+package com.siupo.restaurant.config;
+
+import com.siupo.restaurant.service.table.TableAvailabilityEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+@ConditionalOnProperty(name = "app.booking.availability.redis-sync", havingValue = "true")
+public class TableAvailabilityRedisConfig {
+    @Bean
+    public RedisMessageListenerContainer tableAvailabilityListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TableAvailabilityEngine tableAvailabilityEngine) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> tableAvailabilityEngine.onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TableAvailabilityEngine.CHANGE_CHANNEL));
+        return container;
+    }
+}
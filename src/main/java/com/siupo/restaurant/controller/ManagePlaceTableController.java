@@ -1,9 +1,15 @@
 package com.siupo.restaurant.controller;
 
+import com.siupo.restaurant.dto.response.BookingFeedItemResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.PlaceTableForCustomerResponse;
 import com.siupo.restaurant.dto.response.PlaceTableForGuestResponse;
 import com.siupo.restaurant.service.managePlaceTable.ManagePlaceTableService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,8 +31,9 @@ public class ManagePlaceTableController {
     // ============= CUSTOMER BOOKINGS =============
 
     @GetMapping("/customers")
-    public ResponseEntity<List<PlaceTableForCustomerResponse>> getAllCustomerBookings() {
-        return ResponseEntity.ok(managePlaceTableService.getAllCustomerBookings());
+    public ResponseEntity<Page<PlaceTableForCustomerResponse>> getAllCustomerBookings(
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(managePlaceTableService.getAllCustomerBookings(pageable));
     }
 
     @GetMapping("/customers/{id}")
@@ -35,9 +42,10 @@ public class ManagePlaceTableController {
     }
 
     @GetMapping("/customers/status/{status}")
-    public ResponseEntity<List<PlaceTableForCustomerResponse>> getCustomerBookingsByStatus(
-            @PathVariable String status) {
-        return ResponseEntity.ok(managePlaceTableService.getCustomerBookingsByStatus(status));
+    public ResponseEntity<Page<PlaceTableForCustomerResponse>> getCustomerBookingsByStatus(
+            @PathVariable String status,
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(managePlaceTableService.getCustomerBookingsByStatus(status, pageable));
     }
 
     @GetMapping("/customers/date-range")
@@ -96,8 +104,9 @@ public class ManagePlaceTableController {
     // ============= GUEST BOOKINGS =============
 
     @GetMapping("/guests")
-    public ResponseEntity<List<PlaceTableForGuestResponse>> getAllGuestBookings() {
-        return ResponseEntity.ok(managePlaceTableService.getAllGuestBookings());
+    public ResponseEntity<Page<PlaceTableForGuestResponse>> getAllGuestBookings(
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(managePlaceTableService.getAllGuestBookings(pageable));
     }
 
     @GetMapping("/guests/{id}")
@@ -106,15 +115,17 @@ public class ManagePlaceTableController {
     }
 
     @GetMapping("/guests/status/{status}")
-    public ResponseEntity<List<PlaceTableForGuestResponse>> getGuestBookingsByStatus(
-            @PathVariable String status) {
-        return ResponseEntity.ok(managePlaceTableService.getGuestBookingsByStatus(status));
+    public ResponseEntity<Page<PlaceTableForGuestResponse>> getGuestBookingsByStatus(
+            @PathVariable String status,
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(managePlaceTableService.getGuestBookingsByStatus(status, pageable));
     }
 
     @GetMapping("/guests/phone/{phoneNumber}")
-    public ResponseEntity<List<PlaceTableForGuestResponse>> getGuestBookingsByPhone(
-            @PathVariable String phoneNumber) {
-        return ResponseEntity.ok(managePlaceTableService.getGuestBookingsByPhone(phoneNumber));
+    public ResponseEntity<Page<PlaceTableForGuestResponse>> getGuestBookingsByPhone(
+            @PathVariable String phoneNumber,
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(managePlaceTableService.getGuestBookingsByPhone(phoneNumber, pageable));
     }
 
     @GetMapping("/guests/date-range")
@@ -156,6 +167,16 @@ public class ManagePlaceTableController {
                 id, request.get("status"), request.get("note")));
     }
 
+    // ============= COMBINED FEED =============
+
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageResponse<BookingFeedItemResponse>> getBookingFeed(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(managePlaceTableService.getBookingFeed(status, cursor, size));
+    }
+
     // ============= COMBINED STATISTICS =============
 
     @GetMapping("/statistics")
@@ -1,7 +1,9 @@
 package com.siupo.restaurant.controller;
 
 import com.siupo.restaurant.dto.request.OrderAtTableRequest;
+import com.siupo.restaurant.dto.response.ActiveTableResponse;
 import com.siupo.restaurant.dto.response.ApiResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.OrderAtTableResponse;
 import com.siupo.restaurant.enums.EOrderStatus;
 import com.siupo.restaurant.enums.EPaymentMethod;
@@ -13,9 +15,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/orders-at-table")
@@ -55,6 +59,25 @@ public class OrderAtTableController {
         );
     }
 
+    /**
+     * Các đơn đang mở và tổng tạm tính của bàn (đọc từ bộ nhớ)
+     */
+    @GetMapping("/table/{tableId}/active")
+    public ResponseEntity<ApiResponse<ActiveTableResponse>> getActiveTable(
+            @PathVariable Long tableId) {
+
+        ActiveTableResponse response = orderAtTableService.getActiveTable(tableId);
+
+        return ResponseEntity.ok(
+                ApiResponse.<ActiveTableResponse>builder()
+                        .code("200")
+                        .success(true)
+                        .message("Lấy thông tin bàn đang phục vụ thành công")
+                        .data(response)
+                        .build()
+        );
+    }
+
     // ============== ADMIN ENDPOINTS ==============
 
     @GetMapping("/admin")
@@ -76,6 +99,43 @@ public class OrderAtTableController {
         );
     }
 
+    /**
+     * Luồng SSE các thay đổi đơn tại bàn cho màn hình bếp/phục vụ; kết nối lại với header Last-Event-ID
+     * (hoặc tham số lastEventId) để nhận tiếp các sự kiện bị lỡ
+     */
+    @GetMapping(value = "/admin/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamOrders(
+            @RequestParam(required = false) Long tableId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return orderAtTableService.streamOrders(tableId, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    /**
+     * Phân trang keyset theo (createdAt, id) giảm dần; truyền nextCursor của trang trước để lấy trang sau
+     */
+    @GetMapping("/admin/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderAtTableResponse>>> getAllOrdersByCursor(
+            @RequestParam(required = false) EOrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CursorPageResponse<OrderAtTableResponse> orders =
+                orderAtTableService.getAllOrdersByCursor(status, cursor, size, includeTotal);
+
+        return ResponseEntity.ok(
+                ApiResponse.<CursorPageResponse<OrderAtTableResponse>>builder()
+                        .code("200")
+                        .success(true)
+                        .message("Lấy danh sách đơn hàng tại bàn thành công")
+                        .data(orders)
+                        .build()
+        );
+    }
+
     @PatchMapping("/admin/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<OrderAtTableResponse>> updateOrderStatus(
@@ -4,6 +4,7 @@ import com.siupo.restaurant.dto.OrderDTO;
 import com.siupo.restaurant.dto.request.CreateOrderRequest;
 import com.siupo.restaurant.dto.response.ApiResponse;
 import com.siupo.restaurant.dto.response.CreateOrderResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.OrderReviewsResponse;
 import com.siupo.restaurant.enums.EOrderStatus;
 import com.siupo.restaurant.model.Customer;
@@ -140,6 +141,28 @@ public class OrderController {
 		);
 	}
 
+	/**
+	 * Phân trang keyset theo (createdAt, id) giảm dần; truyền nextCursor của trang trước để lấy trang sau
+	 */
+	@GetMapping("/admin/cursor")
+	@PreAuthorize("hasRole('ADMIN')")
+	public ResponseEntity<ApiResponse<CursorPageResponse<OrderDTO>>> getAllOrdersByCursor(
+			@RequestParam(required = false) EOrderStatus status,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size,
+			@RequestParam(defaultValue = "false") boolean includeTotal) {
+		CursorPageResponse<OrderDTO> orders = orderService.getAllOrdersByCursor(status, cursor, size, includeTotal);
+
+		return ResponseEntity.ok(
+				ApiResponse.<CursorPageResponse<OrderDTO>>builder()
+						.code("200")
+						.success(true)
+						.message("Lấy danh sách đơn hàng thành công")
+						.data(orders)
+						.build()
+		);
+	}
+
 	@GetMapping("/admin/{id}")
 	@PreAuthorize("hasRole('ADMIN')")
 	public ResponseEntity<ApiResponse<OrderDTO>> getOrderDetailById(@PathVariable Long id) {
@@ -1,13 +1,15 @@
 package com.siupo.restaurant.controller;
 
-import com.siupo.restaurant.dto.response.ApiResponse;
-import com.siupo.restaurant.dto.response.ShopDataResponse;
 import com.siupo.restaurant.service.page.PageService;
+import com.siupo.restaurant.service.page.ShopDataSnapshot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/page")
@@ -16,14 +18,15 @@ public class PageController {
     private final PageService pageService;
 
     @GetMapping("/shop/initial-data")
-    public ResponseEntity<ApiResponse<ShopDataResponse>> getShopInitialData() {
-        ShopDataResponse dataResponse = pageService.getInitialDataShop();
-        ApiResponse<ShopDataResponse> response = ApiResponse.<ShopDataResponse>builder()
-                .success(true)
-                .code("200")
-                .message("Shop initial data retrieved successfully")
-                .data(dataResponse)
-                .build();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> getShopInitialData(WebRequest request) {
+        ShopDataSnapshot snapshot = pageService.getShopDataSnapshot();
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
     }
 }
@@ -1,6 +1,5 @@
 package com.siupo.restaurant.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siupo.restaurant.config.MomoConfig;
 import com.siupo.restaurant.dto.request.MomoPaymentRequest;
 import com.siupo.restaurant.dto.request.PreOrderPaymentRequest;
@@ -9,6 +8,8 @@ import com.siupo.restaurant.dto.response.MomoPaymentResponse;
 import com.siupo.restaurant.dto.response.PreOrderPaymentResponse;
 import com.siupo.restaurant.exception.base.ErrorCode;
 import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.service.payment.MomoGatewayClient;
+import com.siupo.restaurant.service.payment.PendingPreOrderStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.HmacAlgorithms;
@@ -16,10 +17,6 @@ import org.apache.commons.codec.digest.HmacUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.*;
 
 @RestController
@@ -29,10 +26,8 @@ import java.util.*;
 public class PreOrderPaymentController {
 
     private final MomoConfig momoConfig;
-    private final ObjectMapper objectMapper;
-
-    // Lưu tạm (production dùng Redis)
-    private final Map<String, PreOrderPaymentRequest> pendingOrders = new HashMap<>();
+    private final MomoGatewayClient momoGatewayClient;
+    private final PendingPreOrderStore pendingPreOrderStore;
 
     @PostMapping("/momo/create")
     public ResponseEntity<ApiResponse<PreOrderPaymentResponse>> createPreOrderPayment(
@@ -50,8 +45,8 @@ public class PreOrderPaymentController {
             String orderInfo = request.getDescription() != null ?
                     request.getDescription() : "Đặt bàn - Pre-order";
 
-            // Lưu tạm
-            pendingOrders.put(orderId, request);
+            // Lưu tạm vào Redis (có TTL)
+            pendingPreOrderStore.save(orderId, request);
 
             // Signature
             String rawSignature = "accessKey=" + momoConfig.getAccessKey() +
@@ -83,18 +78,10 @@ public class PreOrderPaymentController {
                     .signature(signature)
                     .build();
 
-            String requestBody = objectMapper.writeValueAsString(momoRequest);
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest httpRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(momoConfig.getEndpoint()))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-            MomoPaymentResponse momoResponse = objectMapper.readValue(response.body(), MomoPaymentResponse.class);
+            MomoPaymentResponse momoResponse = momoGatewayClient.createPayment(momoRequest);
 
             if (momoResponse.getResultCode() != 0) {
+                pendingPreOrderStore.remove(orderId);
                 throw new BadRequestException(ErrorCode.PAYMENT_FAILED);
             }
 
@@ -122,17 +109,21 @@ public class PreOrderPaymentController {
         String orderId = (String) callback.get("orderId");
         Integer resultCode = (Integer) callback.get("resultCode");
 
-        PreOrderPaymentRequest orderData = pendingOrders.get(orderId);
+        Map<String, Object> response = new HashMap<>();
+
+        // Claim nguyên tử: callback trùng lặp hoặc IPN gửi lại sẽ không lấy được dữ liệu lần nữa
+        Optional<PreOrderPaymentRequest> orderData = pendingPreOrderStore.claim(orderId);
+        if (orderData.isEmpty()) {
+            log.info("Pre-order {} already processed or expired, ignoring callback", orderId);
+            response.put("status", "ignored");
+            return ResponseEntity.ok(response);
+        }
 
         if (resultCode == 0) {
             // TODO: Tạo order thật từ orderData
             log.info("Payment success - Create order for: {}", orderId);
-            pendingOrders.remove(orderId);
-        } else {
-            pendingOrders.remove(orderId);
         }
 
-        Map<String, Object> response = new HashMap<>();
         response.put("status", resultCode == 0 ? "success" : "failed");
         return ResponseEntity.ok(response);
     }
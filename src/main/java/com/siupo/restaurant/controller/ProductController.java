@@ -2,6 +2,7 @@ package com.siupo.restaurant.controller;
 
 import com.siupo.restaurant.dto.request.ProductRequest;
 import com.siupo.restaurant.dto.response.ApiResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.ProductResponse;
 import com.siupo.restaurant.dto.response.ReviewResponse;
 import com.siupo.restaurant.exception.base.ErrorCode;
@@ -41,6 +42,25 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Phân trang keyset theo (createdAt, id) giảm dần (sản phẩm mới nhất trước); truyền nextCursor của trang trước
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> getAllProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @AuthenticationPrincipal User user) {
+        CursorPageResponse<ProductResponse> products = productService.getAllProductsByCursor(user, cursor, size, includeTotal);
+        ApiResponse<CursorPageResponse<ProductResponse>> response = ApiResponse.<CursorPageResponse<ProductResponse>>builder()
+                .success(true)
+                .code("200")
+                .message("Products retrieved successfully")
+                .data(products)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<ProductResponse>> getProductById(
             @PathVariable Long id,
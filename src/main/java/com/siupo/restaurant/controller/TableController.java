@@ -7,10 +7,13 @@ import com.siupo.restaurant.service.table.TableService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -38,6 +41,44 @@ public class TableController {
         );
     }
 
+    /**
+     * Các bàn còn trống cho số khách tại thời điểm at (bàn vừa nhất trước)
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<List<TableResponse>>> getAvailableTables(
+            @RequestParam int guests,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        List<TableResponse> tables = tableService.getAvailableTables(guests, at);
+
+        return ResponseEntity.ok(
+                ApiResponse.<List<TableResponse>>builder()
+                        .code("200")
+                        .success(true)
+                        .message("Lấy danh sách bàn trống thành công")
+                        .data(tables)
+                        .build()
+        );
+    }
+
+    /**
+     * Các khung giờ trong ngày còn bàn cho số khách
+     */
+    @GetMapping("/availability/slots")
+    public ResponseEntity<ApiResponse<List<LocalDateTime>>> getAvailableSlots(
+            @RequestParam int guests,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        List<LocalDateTime> slots = tableService.getAvailableSlots(guests, date);
+
+        return ResponseEntity.ok(
+                ApiResponse.<List<LocalDateTime>>builder()
+                        .code("200")
+                        .success(true)
+                        .message("Lấy khung giờ còn bàn thành công")
+                        .data(slots)
+                        .build()
+        );
+    }
+
     /**
      * Lấy thông tin bàn theo ID
      */
@@ -3,6 +3,7 @@ package com.siupo.restaurant.controller;
 import com.siupo.restaurant.dto.response.VoucherResponse;
 import com.siupo.restaurant.dto.request.ApplyVoucherRequest;
 import com.siupo.restaurant.dto.response.ApiResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.VoucherDiscountResponse;
 import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.service.voucher.VoucherService;
@@ -136,6 +137,21 @@ public class VoucherController {
                 .build());
     }
 
+    @GetMapping("/admin/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<VoucherResponse>>> getAllVouchersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPageResponse<VoucherResponse> vouchers = voucherService.getAllVouchersByCursor(cursor, size, includeTotal);
+        return ResponseEntity.ok(ApiResponse.<CursorPageResponse<VoucherResponse>>builder()
+                .success(true)
+                .code("200")
+                .message("Vouchers retrieved successfully")
+                .data(vouchers)
+                .build());
+    }
+
     @PostMapping("/admin/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<VoucherResponse>> getVoucherById(@PathVariable Long id) {
@@ -0,0 +1,19 @@
+package com.siupo.restaurant.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActiveTableResponse {
+    private Long tableId;
+    private String tableName;
+    private List<OrderAtTableResponse> orders; // Đơn đang mở, cũ nhất trước
+    private Double runningTotal;
+}
@@ -0,0 +1,23 @@
+package com.siupo.restaurant.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng trong danh sách đặt bàn gộp customer + guest, chỉ một trong hai booking có giá trị
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingFeedItemResponse {
+    // CUSTOMER hoặc GUEST
+    private String type;
+    private LocalDateTime createdAt;
+    private PlaceTableForCustomerResponse customerBooking;
+    private PlaceTableForGuestResponse guestBooking;
+}
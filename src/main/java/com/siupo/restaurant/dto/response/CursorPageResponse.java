@@ -0,0 +1,22 @@
+package com.siupo.restaurant.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Token để lấy trang tiếp theo, null nếu đã hết
+    private String nextCursor;
+    // null khi client yêu cầu bỏ qua COUNT
+    private Long totalElements;
+}
@@ -0,0 +1,20 @@
+package com.siupo.restaurant.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KitchenOrderEventResponse {
+    private String type;
+    private Long orderId;
+    private Long tableId;
+    private OrderAtTableResponse order;
+    private LocalDateTime occurredAt;
+}
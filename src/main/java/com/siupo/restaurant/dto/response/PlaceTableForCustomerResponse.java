@@ -21,6 +21,7 @@ public class PlaceTableForCustomerResponse {
     private String phoneNumber;
     private Double totalPrice;
     private LocalDateTime startedAt;
+    private Long tableId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String note;
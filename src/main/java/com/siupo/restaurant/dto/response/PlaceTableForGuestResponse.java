@@ -20,6 +20,7 @@ public class PlaceTableForGuestResponse {
     private Integer memberInt;
     private EPlaceTableStatus status;
     private LocalDateTime startedAt;
+    private Long tableId;
     private String note;
     private LocalDateTime createdAt;
     private String message;
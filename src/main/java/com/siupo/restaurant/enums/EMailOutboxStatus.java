@@ -0,0 +1,7 @@
+package com.siupo.restaurant.enums;
+
+public enum EMailOutboxStatus {
+    PENDING,
+    SENDING,
+    FAILED
+}
@@ -38,6 +38,7 @@ public enum ErrorCode {
     OTP_ATTEMPTS_EXCEEDED(400, "OTP_003", "OTP attempts exceeded"),
     OTP_NOT_FOUND_OR_EXPIRED(404, "OTP_004", "OTP request not found or expired"),
     OTP_STILL_VALID(400, "OTP_005", "An unexpired OTP already exists"),
+    OTP_RATE_LIMITED(429, "OTP_006", "Too many OTP requests, please try again later"),
 
     // ================= ADDRESS =================
     ADDRESS_NOT_FOUND(404, "ADDRESS_001", "Address not found"),
@@ -80,6 +81,7 @@ public enum ErrorCode {
     VOUCHER_START_DATE_INVALID(400, "VOUCHER_005", "Voucher start date must be before end date"),
     CANNOT_APPLY_VOUCHER(400, "VOUCHER_006", "Cannot apply voucher to this order"),
     YOU_CANNOT_APPLY_VOUCHER(400, "VOUCHER_007", "You cannot apply this voucher"),
+    VOUCHER_USAGE_LIMIT_REACHED(409, "VOUCHER_008", "Voucher usage limit has been reached"),
 
     // ================= WISHLIST =================
     WISHLIST_NOT_FOUND(404, "WISHLIST_001", "Wishlist not found"),
@@ -98,6 +100,7 @@ public enum ErrorCode {
     // ================= VALIDATION =================
     VALIDATION_ERROR(400, "VALID_001", "Validation error"),
     INVALID_REQUEST(400, "VALID_002", "Invalid request data"),
+    INVALID_CURSOR(400, "VALID_003", "Invalid pagination cursor"),
 
     // ================= EMAIL =================
     EMAIL_SENDING_FAILED(500, "EMAIL_001", "Failed to send email"),
@@ -124,6 +127,10 @@ public enum ErrorCode {
     // ================= TABLE =================
     MONEY_NOT_VALID(400, "TABLE_001", "Money amount is not valid"),
     TABLE_NOT_FOUND(404, "TABLE_002", "Table not found"),
+    NO_TABLE_AVAILABLE(409, "TABLE_003", "No table available for the requested time and party size"),
+    BOOKING_DATE_OUT_OF_RANGE(400, "TABLE_004", "Booking date is outside the allowed booking window"),
+    INVALID_GUEST_COUNT(400, "TABLE_005", "Number of guests must be at least 1"),
+    BOOKING_OUTSIDE_OPENING_HOURS(400, "TABLE_006", "Booking time is outside opening hours"),
 
     LOI_CHUA_DAT(999, "TEST_001", "Loi chua dat");
 
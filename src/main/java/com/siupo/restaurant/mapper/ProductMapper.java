@@ -13,6 +13,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
@@ -33,6 +34,14 @@ public class ProductMapper {
                 .build();
     }
 
+    public ProductResponse toResponse(Product product, Set<Long> wishlistProductIds) {
+        if (product == null) return null;
+
+        return toResponseBuilder(product)
+                .isWishlist(wishlistProductIds != null && wishlistProductIds.contains(product.getId()))
+                .build();
+    }
+
     private ProductResponse.ProductResponseBuilder toResponseBuilder(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
@@ -48,12 +57,8 @@ public class ProductMapper {
                 .tags(product.getTags() != null
                         ? product.getTags().stream().map(ProductTag::getName).toList()
                         : List.of())
-                .rating(product.getReviews() != null && !product.getReviews().isEmpty()
-                        ? product.getReviews().stream()
-                        .mapToDouble(r -> r.getRate() != null ? r.getRate() : 0.0)
-                        .average().orElse(0.0)
-                        : 0.0)
-                .reviewCount(product.getReviews() != null ? product.getReviews().size() : 0)
+                .rating(product.getRatingSummary() != null ? product.getRatingSummary().average() : 0.0)
+                .reviewCount(product.getRatingSummary() != null ? product.getRatingSummary().count() : 0)
                 .isWishlist(false);
     }
 
@@ -84,13 +89,8 @@ public class ProductMapper {
                             return dto;
                         })
                         .toList() : null)
-                .rating(product.getReviews() != null && !product.getReviews().isEmpty()
-                        ? product.getReviews().stream()
-                        .mapToDouble(review -> review.getRate() != null ? review.getRate() : 0.0)
-                        .average()
-                        .orElse(0.0)
-                        : 0.0)
-                .reviewCount(product.getReviews() != null ? product.getReviews().size() : 0)
+                .rating(product.getRatingSummary() != null ? product.getRatingSummary().average() : 0.0)
+                .reviewCount(product.getRatingSummary() != null ? product.getRatingSummary().count() : 0)
                 .tags(product.getTags() != null ? product.getTags().stream()
                         .map(ProductTag::getName)
                         .collect(Collectors.toList()) : null)
@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 public class   CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.CART_ITEMS)
+    @TableGenerator(name = IdGenerators.CART_ITEMS, table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.PK_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.CART_ITEMS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
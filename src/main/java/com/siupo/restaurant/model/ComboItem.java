@@ -12,7 +12,10 @@ import lombok.*;
 @Builder
 public class ComboItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.COMBO_ITEMS)
+    @TableGenerator(name = IdGenerators.COMBO_ITEMS, table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.PK_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.COMBO_ITEMS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -0,0 +1,20 @@
+package com.siupo.restaurant.model;
+
+/**
+ * Cấu hình chung cho các entity sinh id bằng bảng id_generators (pooled optimizer).
+ * Khác với IDENTITY, Hibernate cấp sẵn một khoảng id nên có thể batch INSERT.
+ */
+public final class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String PK_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String ORDER_ITEMS = "order_items";
+    public static final String CART_ITEMS = "cart_items";
+    public static final String COMBO_ITEMS = "combo_items";
+    public static final String IMAGES = "images";
+
+    private IdGenerators() {
+    }
+}
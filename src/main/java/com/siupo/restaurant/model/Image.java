@@ -17,7 +17,10 @@ import java.time.LocalDateTime;
 @Inheritance(strategy = InheritanceType.JOINED)
 public class  Image {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.IMAGES)
+    @TableGenerator(name = IdGenerators.IMAGES, table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.PK_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.IMAGES, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     private String name;
@@ -0,0 +1,65 @@
+package com.siupo.restaurant.model;
+
+import com.siupo.restaurant.enums.EMailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi. Bản ghi bị xoá ngay khi gửi thành công; FAILED giữ lại (đã xoá nội dung) để tra cứu.
+ * Lưu ý: body có thể chứa OTP dạng rõ nên nằm trong MySQL (và binlog/backup) cho tới khi gửi xong hoặc
+ * quá expiresAt (OTP: 5 phút, cùng hạn với mã); email quá hạn bị xoá nội dung kể cả khi không worker nào chạy.
+ */
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_status_next", columnList = "status, nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EMailOutboxStatus status;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Hạn lease của worker đang gửi; quá hạn thì worker khác được nhận lại
+    private LocalDateTime lockedUntil;
+
+    // Token của lần nhận hiện tại; mọi cập nhật sau khi gửi phải khớp token để không ghi đè lần nhận mới hơn
+    @Column(length = 36)
+    private String leaseToken;
+
+    // Quá hạn thì không gửi nữa (VD: OTP đã hết hiệu lực)
+    private LocalDateTime expiresAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
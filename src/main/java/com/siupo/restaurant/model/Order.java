@@ -12,7 +12,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_created_id", columnList = "status, createdAt, id"),
+        @Index(name = "idx_orders_created_id", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "order_at_table")
+@Table(name = "order_at_table", indexes = {
+        @Index(name = "idx_order_at_table_status_created_id", columnList = "status, createdAt, id"),
+        @Index(name = "idx_order_at_table_created_id", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
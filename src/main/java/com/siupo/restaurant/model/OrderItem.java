@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.ORDER_ITEMS)
+    @TableGenerator(name = IdGenerators.ORDER_ITEMS, table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.PK_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.ORDER_ITEMS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "place_table_customers")
+@Table(name = "place_table_customers", indexes = {
+        @Index(name = "idx_place_table_customers_status_created", columnList = "status, createdAt, id"),
+        @Index(name = "idx_place_table_customers_created", columnList = "createdAt, id"),
+        @Index(name = "idx_place_table_customers_started", columnList = "startedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,6 +47,11 @@ public class PlaceTableForCustomer {
 
     private LocalDateTime startedAt;
 
+    // Bàn được gán khi xác nhận đặt bàn
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "table_id")
+    private TableEntity table;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
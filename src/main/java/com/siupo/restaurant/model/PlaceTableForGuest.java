@@ -9,7 +9,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "place_table_guests")
+@Table(name = "place_table_guests", indexes = {
+        @Index(name = "idx_place_table_guests_status_created", columnList = "status, createdAt, id"),
+        @Index(name = "idx_place_table_guests_created", columnList = "createdAt, id"),
+        @Index(name = "idx_place_table_guests_phone_created", columnList = "phoneNumber, createdAt"),
+        @Index(name = "idx_place_table_guests_started", columnList = "startedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,6 +44,11 @@ public class PlaceTableForGuest {
     @Column(nullable = false)
     private LocalDateTime startedAt;
 
+    // Bàn được gán khi xác nhận đặt bàn
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "table_id")
+    private TableEntity table;
+
     @Column(length = 500)
     private String note;
 
@@ -14,7 +14,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.Where;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_id", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,6 +45,9 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Review> reviews;
 
+    @Embedded
+    private ProductRatingSummary ratingSummary;
+
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
         name = "product_tags",
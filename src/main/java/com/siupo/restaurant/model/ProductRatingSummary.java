@@ -0,0 +1,53 @@
+package com.siupo.restaurant.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tổng hợp đánh giá của sản phẩm, được cập nhật cộng dồn mỗi khi có review mới
+ * để mapper không phải load toàn bộ collection reviews.
+ * Các cột không updatable để việc save Product không ghi đè giá trị đang được cộng dồn.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRatingSummary {
+
+    @Column(name = "rating_sum", updatable = false)
+    private Double ratingSum;
+
+    @Column(name = "rating_count", updatable = false)
+    private Long ratingCount;
+
+    @Column(name = "rating_average", updatable = false)
+    private Double ratingAverage;
+
+    @Column(name = "one_star_count", updatable = false)
+    private Long oneStarCount;
+
+    @Column(name = "two_star_count", updatable = false)
+    private Long twoStarCount;
+
+    @Column(name = "three_star_count", updatable = false)
+    private Long threeStarCount;
+
+    @Column(name = "four_star_count", updatable = false)
+    private Long fourStarCount;
+
+    @Column(name = "five_star_count", updatable = false)
+    private Long fiveStarCount;
+
+    public double average() {
+        return ratingAverage != null ? ratingAverage : 0.0;
+    }
+
+    public int count() {
+        return ratingCount != null ? ratingCount.intValue() : 0;
+    }
+}
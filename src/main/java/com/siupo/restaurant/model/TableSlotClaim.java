@@ -0,0 +1,43 @@
+package com.siupo.restaurant.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một ô (bàn, khung giờ) đã bị giữ. Unique (table_id, slot_start) đảm bảo mỗi ô chỉ thuộc một booking;
+ * expiresAt != null là giữ chỗ tạm cho booking PENDING, null là booking đã CONFIRMED.
+ */
+@Entity
+@Table(name = "table_slot_claims",
+        uniqueConstraints = @UniqueConstraint(name = "uk_table_slot_claims_slot", columnNames = {"table_id", "slot_start"}),
+        indexes = {
+                @Index(name = "idx_table_slot_claims_booking", columnList = "booking_key"),
+                @Index(name = "idx_table_slot_claims_expires", columnList = "expires_at")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TableSlotClaim {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "table_id", nullable = false)
+    private Long tableId;
+
+    @Column(name = "slot_start", nullable = false)
+    private LocalDateTime slotStart;
+
+    @Column(name = "booking_key", nullable = false, length = 32)
+    private String bookingKey;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
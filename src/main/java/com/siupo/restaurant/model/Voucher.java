@@ -11,7 +11,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "vouchers")
+@Table(name = "vouchers", indexes = {
+        @Index(name = "idx_vouchers_status_created_id", columnList = "status, createdAt, id"),
+        @Index(name = "idx_vouchers_created_id", columnList = "createdAt, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -4,6 +4,8 @@ import com.siupo.restaurant.model.Cart;
 import com.siupo.restaurant.model.CartItem;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
 import java.util.List;
@@ -11,6 +13,9 @@ import java.util.List;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByCart(Cart cart);
 
+    @Query("SELECT ci FROM CartItem ci LEFT JOIN FETCH ci.product LEFT JOIN FETCH ci.combo WHERE ci.cart = :cart")
+    List<CartItem> findByCartFetchProductAndCombo(@Param("cart") Cart cart);
+
     @Transactional
     void deleteByCartAndProductIdIn(Cart cart, Collection<Long> productIds);
 }
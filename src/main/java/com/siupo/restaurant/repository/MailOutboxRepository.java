@@ -0,0 +1,76 @@
+package com.siupo.restaurant.repository;
+
+import com.siupo.restaurant.enums.EMailOutboxStatus;
+import com.siupo.restaurant.model.MailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // Email đến hạn gửi, hoặc đang SENDING nhưng lease đã hết (worker cũ chết giữa chừng)
+    @Query("SELECT m FROM MailOutbox m " +
+            "WHERE (m.status = com.siupo.restaurant.enums.EMailOutboxStatus.PENDING AND m.nextAttemptAt <= :now) " +
+            "OR (m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING AND m.lockedUntil < :now) " +
+            "ORDER BY m.id ASC")
+    List<MailOutbox> findDeliverable(@Param("now") LocalDateTime now, Pageable limit);
+
+    // Nhận email để gửi; trả về 0 nếu replica/worker khác đã nhận trước
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING, " +
+            "m.lockedUntil = :leaseUntil, m.leaseToken = :leaseToken " +
+            "WHERE m.id = :id AND ((m.status = com.siupo.restaurant.enums.EMailOutboxStatus.PENDING AND m.nextAttemptAt <= :now) " +
+            "OR (m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING AND m.lockedUntil < :now))")
+    int claim(@Param("id") Long id,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("leaseToken") String leaseToken);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.siupo.restaurant.enums.EMailOutboxStatus.PENDING, " +
+            "m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, m.lockedUntil = NULL, m.leaseToken = NULL, " +
+            "m.lastError = :error " +
+            "WHERE m.id = :id AND m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING AND m.leaseToken = :leaseToken")
+    int markForRetry(@Param("id") Long id,
+                     @Param("leaseToken") String leaseToken,
+                     @Param("attempts") int attempts,
+                     @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                     @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.siupo.restaurant.enums.EMailOutboxStatus.FAILED, " +
+            "m.attempts = :attempts, m.body = NULL, m.lockedUntil = NULL, m.leaseToken = NULL, m.lastError = :error " +
+            "WHERE m.id = :id AND m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING AND m.leaseToken = :leaseToken")
+    int markFailed(@Param("id") Long id,
+                   @Param("leaseToken") String leaseToken,
+                   @Param("attempts") int attempts,
+                   @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MailOutbox m " +
+            "WHERE m.id = :id AND m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING AND m.leaseToken = :leaseToken")
+    int deleteSent(@Param("id") Long id, @Param("leaseToken") String leaseToken);
+
+    // Email quá hạn mà chưa gửi (VD: không có worker/SMTP): chuyển FAILED và xoá nội dung
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = com.siupo.restaurant.enums.EMailOutboxStatus.FAILED, " +
+            "m.body = NULL, m.lockedUntil = NULL, m.leaseToken = NULL, m.lastError = 'Expired before delivery' " +
+            "WHERE m.expiresAt < :now AND (m.status = com.siupo.restaurant.enums.EMailOutboxStatus.PENDING " +
+            "OR (m.status = com.siupo.restaurant.enums.EMailOutboxStatus.SENDING AND m.lockedUntil < :now))")
+    int failExpired(@Param("now") LocalDateTime now);
+
+    long countByStatus(EMailOutboxStatus status);
+}
@@ -8,6 +8,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,9 +20,39 @@ public interface OrderAtTableRepository extends JpaRepository<OrderAtTable, Long
     @Query("SELECT o FROM OrderAtTable o JOIN FETCH o.items WHERE o.id = :id")
     Optional<OrderAtTable> findByIdWithItems(@Param("id") Long id);
 
+    // Dùng cho model bàn đang mở: đơn chưa có món vẫn được nạp
+    @Query("SELECT o FROM OrderAtTable o JOIN FETCH o.table LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<OrderAtTable> findWithTableAndItemsById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT o FROM OrderAtTable o JOIN FETCH o.table LEFT JOIN FETCH o.items " +
+           "WHERE o.status NOT IN :closedStatuses")
+    List<OrderAtTable> findOpenWithTableAndItems(@Param("closedStatuses") Collection<EOrderStatus> closedStatuses);
+
+    @Query("SELECT DISTINCT o FROM OrderAtTable o JOIN FETCH o.table LEFT JOIN FETCH o.items " +
+           "WHERE o.table.id = :tableId AND o.status NOT IN :closedStatuses ORDER BY o.createdAt, o.id")
+    List<OrderAtTable> findOpenByTableWithItems(@Param("tableId") Long tableId,
+                                                @Param("closedStatuses") Collection<EOrderStatus> closedStatuses);
+
     Page<OrderAtTable> findByTableId(Long tableId, Pageable pageable);
 
     Page<OrderAtTable> findByStatus(EOrderStatus status, Pageable pageable);
 
     Page<OrderAtTable> findByTableIdAndStatus(Long tableId, EOrderStatus status, Pageable pageable);
+
+    long countByStatus(EOrderStatus status);
+
+    // Keyset pagination theo (createdAt, id), dùng index idx_order_at_table_status_created_id
+    @Query("SELECT o FROM OrderAtTable o WHERE o.status = :status " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderAtTable> findByStatusBefore(@Param("status") EOrderStatus status,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable limit);
+
+    @Query("SELECT o FROM OrderAtTable o WHERE (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderAtTable> findAllBefore(@Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable limit);
 }
\ No newline at end of file
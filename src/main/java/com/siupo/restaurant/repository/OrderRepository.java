@@ -6,13 +6,35 @@ import com.siupo.restaurant.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserOrderByCreatedAtDesc(User user);
+
+    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
     
     Page<Order> findByStatus(EOrderStatus status, Pageable pageable);
     
     Page<Order> findAll(Pageable pageable);
+
+    long countByStatus(EOrderStatus status);
+
+    // Keyset pagination theo (createdAt, id), dùng index idx_orders_status_created_id
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findByStatusBefore(@Param("status") EOrderStatus status,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Pageable limit);
+
+    @Query("SELECT o FROM Order o WHERE (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAllBefore(@Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") Long id,
+                              Pageable limit);
 }
@@ -2,6 +2,10 @@ package com.siupo.restaurant.repository;
 
 import com.siupo.restaurant.enums.EPlaceTableStatus;
 import com.siupo.restaurant.model.PlaceTableForCustomer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +24,25 @@ public interface PlaceTableForCustomerRepository extends JpaRepository<PlaceTabl
     // Tìm đơn đặt bàn theo trạng thái
     List<PlaceTableForCustomer> findByStatus(EPlaceTableStatus status);
 
+    // Phân trang + sắp xếp trong SQL cho trang quản lý (user, payment được join sẵn)
+    @Override
+    @EntityGraph(attributePaths = {"user", "payment"})
+    Page<PlaceTableForCustomer> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "payment"})
+    Page<PlaceTableForCustomer> findByStatus(EPlaceTableStatus status, Pageable pageable);
+
+    // Keyset theo (createdAt, id) cho danh sách gộp customer + guest
+    @EntityGraph(attributePaths = {"user", "payment"})
+    @Query("SELECT p FROM PlaceTableForCustomer p " +
+            "WHERE (:status IS NULL OR p.status = :status) " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PlaceTableForCustomer> findFeedBefore(@Param("status") EPlaceTableStatus status,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable limit);
+
     // Tìm đơn đặt bàn theo ID và userId (để khách hàng chỉ xem được đơn của mình)
     Optional<PlaceTableForCustomer> findByIdAndUserId(Long id, Long userId);
 
@@ -33,10 +56,26 @@ public interface PlaceTableForCustomerRepository extends JpaRepository<PlaceTabl
     List<PlaceTableForCustomer> findByDateRange(@Param("startDate") LocalDateTime startDate,
                                                 @Param("endDate") LocalDateTime endDate);
 
+    @EntityGraph(attributePaths = {"user", "payment"})
+    List<PlaceTableForCustomer> findByStartedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Sort sort);
+
+    // Nạp booking đã gán bàn cho chỉ mục bàn trống (join sẵn table)
+    @EntityGraph(attributePaths = {"table"})
+    List<PlaceTableForCustomer> findByStatusAndStartedAtGreaterThanEqual(EPlaceTableStatus status, LocalDateTime from);
+
+    @EntityGraph(attributePaths = {"table"})
+    List<PlaceTableForCustomer> findByStatusAndStartedAtGreaterThanEqualAndStartedAtLessThan(EPlaceTableStatus status,
+                                                                                             LocalDateTime from,
+                                                                                             LocalDateTime to);
+
     // Đếm số đơn đặt bàn theo trạng thái
     @Query("SELECT COUNT(p) FROM PlaceTableForCustomer p WHERE p.status = :status")
     Long countByStatus(@Param("status") EPlaceTableStatus status);
 
+    // Đếm theo tất cả trạng thái trong 1 query (dùng index status)
+    @Query("SELECT p.status, COUNT(p) FROM PlaceTableForCustomer p GROUP BY p.status")
+    List<Object[]> countGroupByStatus();
+
     // Đếm số bàn đã được đặt trong khoảng thời gian (để check bàn trống)
     @Query("SELECT COUNT(p) FROM PlaceTableForCustomer p " +
             "WHERE p.startedAt BETWEEN :startRange AND :endRange " +
@@ -2,7 +2,13 @@ package com.siupo.restaurant.repository;
 
 import com.siupo.restaurant.enums.EPlaceTableStatus;
 import com.siupo.restaurant.model.PlaceTableForGuest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -16,4 +22,33 @@ public interface PlaceTableForGuestRepository extends JpaRepository<PlaceTableFo
     List<PlaceTableForGuest> findByStatus(EPlaceTableStatus status);
 
     List<PlaceTableForGuest> findByStartedAtBetween(LocalDateTime start, LocalDateTime end);
+
+    List<PlaceTableForGuest> findByStartedAtBetween(LocalDateTime start, LocalDateTime end, Sort sort);
+
+    Page<PlaceTableForGuest> findByStatus(EPlaceTableStatus status, Pageable pageable);
+
+    // Nạp booking đã gán bàn cho chỉ mục bàn trống (join sẵn table)
+    @EntityGraph(attributePaths = {"table"})
+    List<PlaceTableForGuest> findByStatusAndStartedAtGreaterThanEqual(EPlaceTableStatus status, LocalDateTime from);
+
+    @EntityGraph(attributePaths = {"table"})
+    List<PlaceTableForGuest> findByStatusAndStartedAtGreaterThanEqualAndStartedAtLessThan(EPlaceTableStatus status,
+                                                                                          LocalDateTime from,
+                                                                                          LocalDateTime to);
+
+    // Đếm theo tất cả trạng thái trong 1 query (dùng index status)
+    @Query("SELECT g.status, COUNT(g) FROM PlaceTableForGuest g GROUP BY g.status")
+    List<Object[]> countGroupByStatus();
+
+    Page<PlaceTableForGuest> findByPhoneNumber(String phoneNumber, Pageable pageable);
+
+    // Keyset theo (createdAt, id) cho danh sách gộp customer + guest
+    @Query("SELECT g FROM PlaceTableForGuest g " +
+            "WHERE (:status IS NULL OR g.status = :status) " +
+            "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) " +
+            "ORDER BY g.createdAt DESC, g.id DESC")
+    List<PlaceTableForGuest> findFeedBefore(@Param("status") EPlaceTableStatus status,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable limit);
 }
\ No newline at end of file
@@ -2,10 +2,15 @@ package com.siupo.restaurant.repository;
 
 import com.siupo.restaurant.enums.EProductStatus;
 import com.siupo.restaurant.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,4 +18,47 @@ public interface ProductRepository extends JpaRepository<Product, Long>,
         JpaSpecificationExecutor<Product> {
     List<Product> findByNameContainingIgnoreCase(String name);
     List<Product> findByIdIn(List<Long> ids);
-}
\ No newline at end of file
+
+    // Keyset pagination theo (createdAt, id), dùng index idx_products_created_id
+    @Query("SELECT p FROM Product p WHERE (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findAllBefore(@Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable limit);
+    /**
+     * Cộng dồn một review mới vào rating summary bằng một câu UPDATE nguyên tử.
+     * rating_average được gán trước để tính trên giá trị cũ của sum/count.
+     */
+    @Modifying
+    @Query("UPDATE Product p SET " +
+            "p.ratingSummary.ratingAverage = (COALESCE(p.ratingSummary.ratingSum, 0.0) + :rate) / (COALESCE(p.ratingSummary.ratingCount, 0) + 1), " +
+            "p.ratingSummary.ratingSum = COALESCE(p.ratingSummary.ratingSum, 0.0) + :rate, " +
+            "p.ratingSummary.ratingCount = COALESCE(p.ratingSummary.ratingCount, 0) + 1, " +
+            "p.ratingSummary.oneStarCount = COALESCE(p.ratingSummary.oneStarCount, 0) + CASE WHEN :star = 1 THEN 1 ELSE 0 END, " +
+            "p.ratingSummary.twoStarCount = COALESCE(p.ratingSummary.twoStarCount, 0) + CASE WHEN :star = 2 THEN 1 ELSE 0 END, " +
+            "p.ratingSummary.threeStarCount = COALESCE(p.ratingSummary.threeStarCount, 0) + CASE WHEN :star = 3 THEN 1 ELSE 0 END, " +
+            "p.ratingSummary.fourStarCount = COALESCE(p.ratingSummary.fourStarCount, 0) + CASE WHEN :star = 4 THEN 1 ELSE 0 END, " +
+            "p.ratingSummary.fiveStarCount = COALESCE(p.ratingSummary.fiveStarCount, 0) + CASE WHEN :star = 5 THEN 1 ELSE 0 END " +
+            "WHERE p.id = :productId")
+    int addRating(@Param("productId") Long productId, @Param("rate") double rate, @Param("star") int star);
+    /**
+     * Dựng lại rating summary của mọi sản phẩm từ bảng reviews trong một câu UPDATE.
+     * Sản phẩm không còn review nào được đưa về 0 nhờ LEFT JOIN.
+     */
+    @Modifying
+    @Query(value = "UPDATE products p LEFT JOIN (" +
+            "SELECT product_id, SUM(ROUND(rate)) AS rating_sum, COUNT(*) AS rating_count, " +
+            "SUM(ROUND(rate) = 1) AS one_star, SUM(ROUND(rate) = 2) AS two_star, SUM(ROUND(rate) = 3) AS three_star, " +
+            "SUM(ROUND(rate) = 4) AS four_star, SUM(ROUND(rate) = 5) AS five_star " +
+            "FROM reviews WHERE rate BETWEEN 1 AND 5 AND product_id IS NOT NULL GROUP BY product_id) r " +
+            "ON r.product_id = p.id SET " +
+            "p.rating_sum = COALESCE(r.rating_sum, 0), " +
+            "p.rating_count = COALESCE(r.rating_count, 0), " +
+            "p.rating_average = COALESCE(r.rating_sum / r.rating_count, 0), " +
+            "p.one_star_count = COALESCE(r.one_star, 0), " +
+            "p.two_star_count = COALESCE(r.two_star, 0), " +
+            "p.three_star_count = COALESCE(r.three_star, 0), " +
+            "p.four_star_count = COALESCE(r.four_star, 0), " +
+            "p.five_star_count = COALESCE(r.five_star, 0)", nativeQuery = true)
+    int rebuildAllRatingSummaries();
+}
@@ -0,0 +1,62 @@
+package com.siupo.restaurant.repository;
+
+import com.siupo.restaurant.model.TableSlotClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TableSlotClaimRepository extends JpaRepository<TableSlotClaim, Long> {
+
+    // Trả về 0 nếu ô đã bị booking khác giữ (unique table_id + slot_start), không ném lỗi làm hỏng transaction
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO table_slot_claims (table_id, slot_start, booking_key, expires_at, created_at) " +
+            "VALUES (:tableId, :slotStart, :bookingKey, :expiresAt, :now)", nativeQuery = true)
+    int insertIgnore(@Param("tableId") Long tableId,
+                     @Param("slotStart") LocalDateTime slotStart,
+                     @Param("bookingKey") String bookingKey,
+                     @Param("expiresAt") LocalDateTime expiresAt,
+                     @Param("now") LocalDateTime now);
+
+    // Dọn giữ chỗ đã hết hạn trên các ô sắp claim
+    @Modifying
+    @Query("DELETE FROM TableSlotClaim c WHERE c.tableId = :tableId AND c.slotStart IN :slots " +
+            "AND c.expiresAt IS NOT NULL AND c.expiresAt < :now")
+    int deleteExpiredSlots(@Param("tableId") Long tableId,
+                           @Param("slots") Collection<LocalDateTime> slots,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM TableSlotClaim c WHERE c.bookingKey = :bookingKey")
+    int deleteByBookingKey(@Param("bookingKey") String bookingKey);
+
+    @Modifying
+    @Query("DELETE FROM TableSlotClaim c WHERE c.expiresAt IS NOT NULL AND c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Chuyển giữ chỗ còn hạn thành claim cố định khi xác nhận booking
+    @Modifying
+    @Query("UPDATE TableSlotClaim c SET c.expiresAt = NULL " +
+            "WHERE c.bookingKey = :bookingKey AND (c.expiresAt IS NULL OR c.expiresAt >= :now)")
+    int makePermanent(@Param("bookingKey") String bookingKey, @Param("now") LocalDateTime now);
+
+    // Ô đang bị chiếm (cố định hoặc giữ chỗ còn hạn), để nạp chỉ mục bàn trống
+    @Query("SELECT c FROM TableSlotClaim c WHERE c.slotStart >= :from AND c.slotStart < :to " +
+            "AND (c.expiresAt IS NULL OR c.expiresAt >= :now)")
+    List<TableSlotClaim> findActiveBetween(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("now") LocalDateTime now);
+
+    @Query("SELECT c FROM TableSlotClaim c WHERE c.slotStart >= :from " +
+            "AND (c.expiresAt IS NULL OR c.expiresAt >= :now)")
+    List<TableSlotClaim> findActiveFrom(@Param("from") LocalDateTime from, @Param("now") LocalDateTime now);
+
+    @Query("SELECT MIN(c.tableId) FROM TableSlotClaim c WHERE c.bookingKey = :bookingKey")
+    Long findTableIdByBookingKey(@Param("bookingKey") String bookingKey);
+}
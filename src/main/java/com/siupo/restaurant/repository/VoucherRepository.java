@@ -2,12 +2,15 @@ package com.siupo.restaurant.repository;
 
 import com.siupo.restaurant.enums.EVoucherStatus;
 import com.siupo.restaurant.model.Voucher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,7 +26,53 @@ public interface VoucherRepository extends JpaRepository<Voucher, Long> {
     List<Voucher> findAvailableVouchers(@Param("status") EVoucherStatus status, 
                                          @Param("now") LocalDateTime now);
     
-    @Query("SELECT v FROM Voucher v WHERE v.endDate < :now AND v.status != :expiredStatus")
-    List<Voucher> findExpiredVouchers(@Param("now") LocalDateTime now, 
-                                       @Param("expiredStatus") EVoucherStatus expiredStatus);
+    @Query("SELECT v FROM Voucher v WHERE v.status = :status " +
+           "AND v.isPublic = true " +
+           "AND v.endDate >= :now")
+    List<Voucher> findLiveAndUpcomingVouchers(@Param("status") EVoucherStatus status,
+                                              @Param("now") LocalDateTime now);
+
+    @Query("SELECT v.id, v.usedCount FROM Voucher v WHERE v.id IN :ids")
+    List<Object[]> findUsedCountsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT v FROM Voucher v WHERE (v.createdAt < :createdAt OR (v.createdAt = :createdAt AND v.id < :id)) " +
+           "ORDER BY v.createdAt DESC, v.id DESC")
+    List<Voucher> findAllBefore(@Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable limit);
+
+    List<Voucher> findByStatusNotAndEndDateAfter(EVoucherStatus status, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Voucher v SET v.status = :expiredStatus, v.updatedAt = :now " +
+           "WHERE v.endDate <= :now AND v.status != :expiredStatus")
+    int expireEndedVouchers(@Param("now") LocalDateTime now,
+                            @Param("expiredStatus") EVoucherStatus expiredStatus);
+
+    /**
+     * Giữ chỗ 1 lượt dùng: kiểm tra giới hạn và tăng usedCount trong cùng một câu UPDATE.
+     * Trả về 0 nếu voucher đã hết lượt hoặc không còn ACTIVE.
+     */
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = v.usedCount + 1 " +
+           "WHERE v.id = :voucherId " +
+           "AND v.status = com.siupo.restaurant.enums.EVoucherStatus.ACTIVE " +
+           "AND (v.usageLimit = 0 OR v.usedCount < v.usageLimit)")
+    int tryReserveUsage(@Param("voucherId") Long voucherId);
+
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = v.usedCount - 1 WHERE v.id = :voucherId AND v.usedCount > 0")
+    int releaseUsage(@Param("voucherId") Long voucherId);
+
+    @Query("SELECT v.id, v.usedCount FROM Voucher v")
+    List<Object[]> findAllUsedCounts();
+
+    /**
+     * Chỉ ghi đè khi usedCount chưa đổi kể từ lúc đọc, tránh đè lên lượt giữ chỗ vừa commit
+     */
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = :actual WHERE v.id = :voucherId AND v.usedCount = :observed")
+    int reconcileUsedCount(@Param("voucherId") Long voucherId,
+                           @Param("observed") Integer observed,
+                           @Param("actual") Integer actual);
 }
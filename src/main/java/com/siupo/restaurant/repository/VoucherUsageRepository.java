@@ -4,6 +4,9 @@ import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.model.Voucher;
 import com.siupo.restaurant.model.VoucherUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +23,14 @@ public interface VoucherUsageRepository extends JpaRepository<VoucherUsage, Long
     long countByVoucherAndUser(Voucher voucher, User user);
     
     boolean existsByVoucherAndUser(Voucher voucher, User user);
+
+    @Modifying
+    @Query("DELETE FROM VoucherUsage u WHERE u.order.id = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT u.voucher.id, COUNT(u) FROM VoucherUsage u WHERE u.user.id = :userId GROUP BY u.voucher.id")
+    List<Object[]> countGroupByVoucherForUser(@Param("userId") Long userId);
+
+    @Query("SELECT u.voucher.id, COUNT(u) FROM VoucherUsage u GROUP BY u.voucher.id")
+    List<Object[]> countGroupByVoucher();
 }
@@ -2,8 +2,11 @@ package com.siupo.restaurant.repository;
 
 import com.siupo.restaurant.model.WishlistItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +17,7 @@ public interface WishlistItemRepository extends JpaRepository<WishlistItem, Long
     boolean existsByWishlistIdAndProductId(Long wishlistId, Long productId);
 
     void deleteByWishlistIdAndProductId(Long wishlistId, Long productId);
+
+    @Query("SELECT wi.product.id FROM WishlistItem wi WHERE wi.wishlist.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
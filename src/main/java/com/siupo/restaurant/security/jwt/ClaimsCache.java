@@ -0,0 +1,78 @@
+package com.siupo.restaurant.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache claims của access token đã được verify chữ ký, hết hạn đúng theo exp của token.
+ * Key là chính chuỗi token (so sánh equals toàn bộ) nên không có rủi ro va chạm hash giữa hai token.
+ */
+@Component
+public class ClaimsCache {
+    private final Map<String, CachedClaims> entries = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ClaimsCache(@Value("${app.security.claims-cache.enabled:true}") boolean enabled,
+                       @Value("${app.security.claims-cache.max-size:20000}") int maxSize,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("security.jwt.claims.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("security.jwt.claims.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("security.jwt.claims.cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    public Claims get(String token, Function<String, Claims> parser) {
+        if (!enabled) {
+            return parser.apply(token);
+        }
+        long now = System.currentTimeMillis();
+        CachedClaims cached = entries.get(token);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.increment();
+                return cached.claims;
+            }
+            entries.remove(token);
+        }
+        misses.increment();
+        // parser ném exception nếu token sai chữ ký hoặc đã hết hạn, khi đó không cache gì
+        Claims claims = parser.apply(token);
+        if (claims.getExpiration() != null) {
+            if (entries.size() >= maxSize) {
+                makeRoom(now);
+            }
+            entries.put(token, new CachedClaims(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    private void makeRoom(long now) {
+        entries.entrySet().removeIf(entry -> entry.getValue().expiresAt <= now);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record CachedClaims(Claims claims, long expiresAt) {
+    }
+}
@@ -1,13 +1,18 @@
 package com.siupo.restaurant.security.jwt;
 
+import com.siupo.restaurant.model.Admin;
+import com.siupo.restaurant.model.Customer;
 import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.service.user.UserService;
 import io.micrometer.common.lang.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -23,10 +28,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final List<String> claimsOnlyPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserService userService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                   UserService userService,
+                                   PrincipalCache principalCache,
+                                   @Value("${app.security.claims-only-paths:/api/orders/my-orders,/api/notifications/customer}")
+                                   List<String> claimsOnlyPaths) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userService = userService;
+        this.principalCache = principalCache;
+        this.claimsOnlyPaths = claimsOnlyPaths;
     }
 
     @Override
@@ -42,6 +56,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     return;
                 }
                 String email = claims.getSubject();
+                Long userId = jwtTokenProvider.getUserId(claims);
                 @SuppressWarnings("unchecked")
                 List<String> roles = (List<String>) claims.get("roles");
 
@@ -49,7 +64,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         .map(SimpleGrantedAuthority::new)
                         .toList();
 
-                User user = userService.getUserByEmail(email);
+                User user = userId != null && isClaimsOnlyRequest(request)
+                        ? buildClaimsPrincipal(userId, email, roles)
+                        : principalCache.get(email, userService::getUserByEmail);
 
                 UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(user, null, authorities);
@@ -80,4 +97,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
+
+    /**
+     * Chỉ các request GET chỉ đọc (cấu hình ở app.security.claims-only-paths) mới dùng principal từ claims
+     */
+    private boolean isClaimsOnlyRequest(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        String path = request.getRequestURI();
+        return claimsOnlyPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+
+    /**
+     * Principal không được quản lý bởi JPA, chỉ có id và email lấy từ token.
+     * Không dùng cho các thao tác ghi cần entity đầy đủ.
+     */
+    private User buildClaimsPrincipal(Long userId, String email, List<String> roles) {
+        if (roles.contains("ROLE_ADMIN")) {
+            return Admin.builder().id(userId).email(email).build();
+        }
+        if (roles.contains("ROLE_CUSTOMER")) {
+            return Customer.builder().id(userId).email(email).build();
+        }
+        return User.builder().id(userId).email(email).build();
+    }
 }
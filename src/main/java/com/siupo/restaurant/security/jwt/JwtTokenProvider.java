@@ -22,7 +22,14 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-expiration}")
     private long refreshTokenExpiration;
 
+    private final ClaimsCache claimsCache;
+
     private SecretKey key;
+    private JwtParser parser;
+
+    public JwtTokenProvider(ClaimsCache claimsCache) {
+        this.claimsCache = claimsCache;
+    }
 
     @PostConstruct
     public void init() {
@@ -30,29 +37,33 @@ public class JwtTokenProvider {
             throw new IllegalStateException("JWT secret must be at least 32 characters");
         }
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     // ===== TOKEN GENERATION =====
 
-    public String generateAccessToken(String email, List<String> roles) {
-        return buildToken(email, roles, "ACCESS", accessTokenExpiration);
+    public String generateAccessToken(Long userId, String email, List<String> roles) {
+        return buildToken(userId, email, roles, "ACCESS", accessTokenExpiration);
     }
 
     public String generateRefreshToken(String email) {
-        return buildToken(email, null, "REFRESH", refreshTokenExpiration);
+        return buildToken(null, email, null, "REFRESH", refreshTokenExpiration);
     }
 
     // ===== TOKEN PARSING =====
 
     public Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsCache.get(token, this::verifyAndParse);
+    }
+
+    private Claims verifyAndParse(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private String buildToken(
+            Long userId,
             String email,
             List<String> roles,
             String type,
@@ -60,6 +71,7 @@ public class JwtTokenProvider {
     ) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim("uid", userId)
                 .claim("type", type)
                 .claim("roles", roles)
                 .setIssuedAt(new Date())
@@ -68,6 +80,11 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    public Long getUserId(Claims claims) {
+        Object userId = claims.get("uid");
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
     public boolean isAccessToken(Claims claims) {
         return "ACCESS".equals(claims.get("type"));
     }
@@ -0,0 +1,165 @@
+package com.siupo.restaurant.security.jwt;
+
+import com.siupo.restaurant.model.Image;
+import com.siupo.restaurant.model.User;
+import com.siupo.restaurant.service.user.UserChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Cache principal (User) theo subject của JWT, giới hạn kích thước và hết hạn theo TTL.
+ * Việc xoá cache được broadcast qua Redis pub/sub để mọi replica cùng xoá; cache chỉ hoạt động khi bật redis-enabled,
+ * vì thiếu kênh này thì user bị khoá hoặc đổi mật khẩu ở replica khác vẫn dùng principal cũ tới hết TTL.
+ * Cache giữ bản đã nạp và mỗi request nhận một bản sao riêng, nên thay đổi của request (kể cả khi rollback)
+ * không lọt vào cache. Mỗi subject có generation tăng khi bị xoá; lần nạp bắt đầu trước khi xoá sẽ không được put.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+    public static final String INVALIDATION_CHANNEL = "principal-cache:invalidate";
+    // Generation theo stripe để bộ nhớ có giới hạn; trùng stripe chỉ làm bỏ qua thêm vài lần put
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Map<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final int maxSize;
+    private final long ttlMillis;
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public PrincipalCache(@Value("${app.security.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${app.security.principal-cache.ttl:PT5M}") Duration ttl,
+                          @Value("${app.security.principal-cache.redis-enabled:false}") boolean redisEnabled,
+                          ObjectProvider<StringRedisTemplate> redisTemplate,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled && redisEnabled;
+        if (enabled && !redisEnabled) {
+            log.info("Principal cache disabled: it requires app.security.principal-cache.redis-enabled for cross-replica invalidation");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.redisEnabled = redisEnabled;
+        this.redisTemplate = redisTemplate;
+        this.hits = Counter.builder("security.principal.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("security.principal.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("security.principal.cache.evictions")
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    public User get(String subject, Function<String, User> loader) {
+        if (!enabled) {
+            return loader.apply(subject);
+        }
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = entries.get(subject);
+        if (cached != null && cached.expiresAt > now) {
+            hits.increment();
+            return copyOf(cached.user);
+        }
+        misses.increment();
+        int stripe = stripe(subject);
+        long generation = generations.get(stripe);
+        User user = loader.apply(subject);
+        if (user == null) {
+            return null;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        CachedPrincipal loaded = new CachedPrincipal(user, now + ttlMillis);
+        // evictLocal tăng generation trước khi remove, nên kiểm tra trong compute đủ để không put dữ liệu cũ
+        entries.compute(subject, (key, previous) -> generations.get(stripe) == generation ? loaded : previous);
+        return copyOf(user);
+    }
+
+    public void invalidate(String subject) {
+        evictLocal(subject);
+        if (redisEnabled) {
+            StringRedisTemplate template = redisTemplate.getIfAvailable();
+            if (template != null) {
+                try {
+                    template.convertAndSend(INVALIDATION_CHANNEL, subject);
+                } catch (Exception e) {
+                    log.warn("Failed to broadcast principal cache invalidation for {}: {}", subject, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void evictLocal(String subject) {
+        if (subject == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(subject));
+        if (entries.remove(subject) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Xoá khi transaction kết thúc (commit hoặc rollback); lần nạp đang chạy song song bị chặn bởi generation
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getEmail());
+    }
+
+    private void makeRoom(long now) {
+        entries.entrySet().removeIf(entry -> entry.getValue().expiresAt <= now);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() >= maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Bản sao nông cùng lớp con; avatar được sao riêng vì UserServiceImpl sửa trực tiếp.
+     * Các association lazy khác dùng chung tham chiếu, không bị request nào sửa tại chỗ.
+     */
+    private User copyOf(User source) {
+        User copy = BeanUtils.instantiateClass(source.getClass());
+        BeanUtils.copyProperties(source, copy);
+        if (source.getAvatar() != null) {
+            Image avatar = BeanUtils.instantiateClass(source.getAvatar().getClass());
+            BeanUtils.copyProperties(source.getAvatar(), avatar);
+            copy.setAvatar(avatar);
+        }
+        return copy;
+    }
+
+    private int stripe(String subject) {
+        return Math.floorMod(subject.hashCode(), GENERATION_STRIPES);
+    }
+
+    private record CachedPrincipal(User user, long expiresAt) {
+    }
+}
@@ -12,8 +12,10 @@ import com.siupo.restaurant.model.Customer;
 import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.repository.AddressRepository;
 import com.siupo.restaurant.repository.UserRepository;
+import com.siupo.restaurant.service.user.UserChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class AddressServiceImpl implements AddressService {
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
     private final AddressMapper addressMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -61,6 +64,7 @@ public class AddressServiceImpl implements AddressService {
         if (customer.getDefaultAddress() == null) {
             customer.setDefaultAddress(saved);
             userRepository.save(customer);
+            eventPublisher.publishEvent(new UserChangedEvent(customer.getEmail()));
         }
         return addressMapper.toAddressResponse(saved);
     }
@@ -115,6 +119,7 @@ public class AddressServiceImpl implements AddressService {
                 .orElseThrow(() -> new UnauthorizedException(ErrorCode.ADDRESS_NOT_FOUND));
         customer.setDefaultAddress(address);
         userRepository.save(customer);
+        eventPublisher.publishEvent(new UserChangedEvent(customer.getEmail()));
         return addressMapper.toDefaultAddressResponse(address);
     }
 
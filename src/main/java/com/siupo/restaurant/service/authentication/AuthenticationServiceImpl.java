@@ -14,7 +14,9 @@ import com.siupo.restaurant.repository.PendingRegistrationRepository;
 import com.siupo.restaurant.repository.UserRepository;
 import com.siupo.restaurant.service.otp.OtpService;
 import com.siupo.restaurant.service.token.TokenService;
+import com.siupo.restaurant.service.user.UserChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +35,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final PendingRegistrationRepository pendingRegistrationRepository;
 
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     // =============== ĐĂNG NHẬP ===============
     @Override
@@ -53,6 +56,8 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     public void register(RegisterRequest request) {
         if (userRepository.findByEmail(request.getEmail()).isPresent())
             throw new ConflictException(ErrorCode.EMAIL_ALREADY_EXISTS);
+        // Chặn sớm khi bị giới hạn tần suất, trước khi tốn một lần BCrypt
+        otpService.ensureSendAllowed(request.getEmail());
         // 1. Lưu thông tin đăng ký tạm vào Redis (để dùng lại khi confirm)
         PendingRegistrationRedis pendingUser = new PendingRegistrationRedis(
                 request.getEmail(),
@@ -106,6 +111,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
     }
 
     // =============== CÁC HÀM KHÁC ===============
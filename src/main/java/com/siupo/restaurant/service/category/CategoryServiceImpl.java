@@ -8,7 +8,9 @@ import com.siupo.restaurant.exception.business.ResourceNotFoundException;
 import com.siupo.restaurant.mapper.CategoryMapper;
 import com.siupo.restaurant.model.Category;
 import com.siupo.restaurant.repository.CategoryRepository;
+import com.siupo.restaurant.service.page.ShopDataChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +24,7 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -35,6 +38,7 @@ public class CategoryServiceImpl implements CategoryService {
     public CategoryResponse addCategory(CategoryRequest categoryRequest) {
         Category category = categoryMapper.toEntity(categoryMapper.requestToResponse(categoryRequest));
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("category"));
         return categoryMapper.toResponse(savedCategory);
     }
 
@@ -44,6 +48,7 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.CATEGORY_NOT_FOUND));
         categoryMapper.updateCategoryFromRequest(category, categoryRequest);
         Category updatedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("category"));
         return categoryMapper.toResponse(updatedCategory);
     }
 
@@ -57,5 +62,6 @@ public class CategoryServiceImpl implements CategoryService {
         } catch (DataIntegrityViolationException e) {
             throw new BadRequestException(ErrorCode.CANNOT_DELETE_CATEGORY);
         }
+        eventPublisher.publishEvent(new ShopDataChangedEvent("category"));
     }
 }
\ No newline at end of file
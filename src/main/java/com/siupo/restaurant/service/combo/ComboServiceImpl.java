@@ -12,7 +12,9 @@ import com.siupo.restaurant.model.*;
 import com.siupo.restaurant.repository.ComboItemRepository;
 import com.siupo.restaurant.repository.ComboRepository;
 import com.siupo.restaurant.repository.ProductRepository;
+import com.siupo.restaurant.service.page.ShopDataChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +29,7 @@ public class ComboServiceImpl implements ComboService {
     private final ComboItemRepository comboItemRepository;
     private final ProductRepository productRepository;
     private final ComboMapper comboMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -67,6 +70,7 @@ public class ComboServiceImpl implements ComboService {
             comboToUse.setItems(comboItems);
         }
         Combo savedCombo = comboRepository.save(comboToUse);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("combo"));
         return comboMapper.toResponse(savedCombo);
     }
 
@@ -148,7 +152,9 @@ public class ComboServiceImpl implements ComboService {
             combo.getItems().addAll(newItems);
         }
         // 5. Save Combo
-        return comboMapper.toResponse(comboRepository.save(combo));
+        Combo savedCombo = comboRepository.save(combo);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("combo"));
+        return comboMapper.toResponse(savedCombo);
     }
 
     @Override
@@ -158,6 +164,7 @@ public class ComboServiceImpl implements ComboService {
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.COMBO_NOT_FOUND));
         combo.setStatus(EProductStatus.DELETED);
         comboRepository.save(combo);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("combo"));
     }
 
     @Override
@@ -171,6 +178,8 @@ public class ComboServiceImpl implements ComboService {
         combo.setStatus(combo.getStatus() == EProductStatus.AVAILABLE
                 ? EProductStatus.UNAVAILABLE
                 : EProductStatus.AVAILABLE);
-        return comboMapper.toResponse(comboRepository.save(combo));
+        Combo savedCombo = comboRepository.save(combo);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("combo"));
+        return comboMapper.toResponse(savedCombo);
     }
 }
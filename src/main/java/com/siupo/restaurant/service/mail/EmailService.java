@@ -1,7 +1,18 @@
 package com.siupo.restaurant.service.mail;
 
-import jakarta.mail.MessagingException;
+import com.siupo.restaurant.enums.EOrderStatus;
 
+import java.time.LocalDateTime;
+
+/**
+ * Các phương thức chỉ render template và đưa email vào hàng đợi gửi; trả về ngay, không chờ SMTP
+ */
 public interface EmailService {
-    boolean sendOTPToEmail(String toEmail, String otp, String subject) throws MessagingException;
+    void sendOTPToEmail(String toEmail, String otp, String subject);
+
+    void sendBookingConfirmation(String toEmail, String customerName, Long bookingId,
+                                 LocalDateTime startedAt, Integer guests);
+
+    void sendOrderStatusUpdate(String toEmail, String customerName, Long orderId,
+                               EOrderStatus status, Double totalPrice);
 }
@@ -1,143 +1,77 @@
 package com.siupo.restaurant.service.mail;
 
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import com.siupo.restaurant.enums.EOrderStatus;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
+@RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
+    // Bằng TTL của OtpRedis: quá hạn thì OTP vô hiệu, không cần gửi nữa
+    private static final Duration OTP_MAIL_VALIDITY = Duration.ofMinutes(5);
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+    private static final Locale VIETNAMESE = Locale.forLanguageTag("vi-VN");
 
-    private final JavaMailSender mailSender;
+    private final MailQueue mailQueue;
+    private final MailTemplateEngine mailTemplateEngine;
 
-    public EmailServiceImpl(@org.springframework.beans.factory.annotation.Autowired(required = false) JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    @Override
+    public void sendOTPToEmail(String toEmail, String otp, String subject) {
+        String htmlContent = mailTemplateEngine.render(MailTemplateEngine.OTP, Map.of("otp", otp));
+        mailQueue.enqueue(toEmail,
+                subject != null ? subject : "Mã xác thực OTP - Siupo Restaurant",
+                htmlContent,
+                OTP_MAIL_VALIDITY);
     }
 
     @Override
-    public boolean sendOTPToEmail(String toEmail, String otp, String subject) throws MessagingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-        try {
-            helper.setFrom("siupo@gmail.com", "Siupo Restaurant");
-        } catch (java.io.UnsupportedEncodingException e) {
-            helper.setFrom("siupo@gmail.com");
+    public void sendBookingConfirmation(String toEmail, String customerName, Long bookingId,
+                                        LocalDateTime startedAt, Integer guests) {
+        String htmlContent = mailTemplateEngine.render(MailTemplateEngine.BOOKING_CONFIRMATION, Map.of(
+                "customerName", customerName != null ? customerName : "quý khách",
+                "bookingId", String.valueOf(bookingId),
+                "startedAt", startedAt != null ? startedAt.format(DATE_TIME_FORMAT) : "",
+                "guests", guests != null ? String.valueOf(guests) : ""));
+        // Qua giờ hẹn thì email không còn ý nghĩa
+        Duration validFor = startedAt != null ? Duration.between(LocalDateTime.now(), startedAt) : null;
+        if (validFor != null && validFor.isNegative()) {
+            validFor = Duration.ZERO;
         }
-        helper.setTo(toEmail);
-        helper.setSubject(subject != null ? subject : "Mã xác thực OTP - Siupo Restaurant");
-
-        // Nếu dùng template engine Thymeleaf thì thay "${otp}" bằng biến thật
-        String htmlContent = getHtmlContent(otp);
-
-        helper.setText(htmlContent, true);
-
-        mailSender.send(message);
+        mailQueue.enqueue(toEmail,
+                "Xác nhận yêu cầu đặt bàn #" + bookingId + " - Siupo Restaurant",
+                htmlContent,
+                validFor);
+    }
 
-        return true;
+    @Override
+    public void sendOrderStatusUpdate(String toEmail, String customerName, Long orderId,
+                                      EOrderStatus status, Double totalPrice) {
+        String htmlContent = mailTemplateEngine.render(MailTemplateEngine.ORDER_STATUS, Map.of(
+                "customerName", customerName != null ? customerName : "quý khách",
+                "orderId", String.valueOf(orderId),
+                "status", statusLabel(status),
+                "totalPrice", totalPrice != null ? String.format(VIETNAMESE, "%,.0f ₫", totalPrice) : ""));
+        mailQueue.enqueue(toEmail,
+                "Đơn hàng #" + orderId + " " + statusLabel(status).toLowerCase(VIETNAMESE) + " - Siupo Restaurant",
+                htmlContent,
+                null);
     }
 
-    private String getHtmlContent(String otp) {
-        return """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                <meta charset="UTF-8">
-                <style>
-                    body {
-                        background-color: #f0f4f8; /* nền tổng thể nhẹ nhàng */
-                        font-family: 'Segoe UI', Tahoma, Geneva, Verdana, sans-serif;
-                        margin: 0;
-                        padding: 0;
-                    }
-                    .email-wrapper {
-                        max-width: 700px;
-                        margin: 50px auto;
-                        padding: 20px;
-                    }
-                    .email-container {
-                        background: linear-gradient(326deg, #86ffe799, #d6aeffd4);
-                        border-radius: 14px;
-                        padding: 40px;
-                        box-shadow: 0 10px 25px rgba(0,0,0,0.08);
-                    }
-                    .header {
-                        text-align: center;
-                        margin-bottom: 30px;
-                    }
-                    .header h1 {
-                        margin: 0;
-                        font-size: 30px;
-                        color: #1a1a1a; /* chữ đen hiện đại */
-                    }
-                    .intro {
-                        font-size: 16px;
-                        color: #333333;
-                        line-height: 1.6;
-                        margin-bottom: 25px;
-                    }
-                    .otp-container {
-                        text-align: center;
-                        margin: 30px 0;
-                    }
-                    .otp-code {
-                        display: inline-block;
-                        font-size: 38px;
-                        font-weight: bold;
-                        color: #ff6f20; /* cam rực rỡ */
-                        background: #fff7f0; /* nền nhẹ cho OTP */
-                        padding: 20px 50px;
-                        border-radius: 12px;
-                        letter-spacing: 5px;
-                        box-shadow: 0 4px 15px rgba(0,0,0,0.1);
-                    }
-                    .instructions {
-                        font-size: 15px;
-                        color: #555555;
-                        line-height: 1.6;
-                        margin-top: 20px;
-                        text-align: center;
-                    }
-                    .button-container {
-                        text-align: center;
-                        margin-top: 35px;
-                    }
-                    .footer {
-                        text-align: center;
-                        margin-top: 45px;
-                        font-size: 13px;
-                        color: #888888;
-                        line-height: 1.5;
-                    }
-                </style>
-                </head>
-                <body>
-                <div class="email-wrapper">
-                    <div class="email-container">
-                        <div class="header">
-                            <h1>Mã xác nhận OTP</h1>
-                        </div>
-                        <div class="intro">
-                            Xin chào,<br/><br/>
-                            Chúng tôi đã nhận được yêu cầu của bạn.\s
-                            Vui lòng sử dụng mã OTP dưới đây để hoàn tất quá trình xác thực.\s
-                            Mã này chỉ có hiệu lực trong 1 phút và không được chia sẻ với bất kỳ ai.
-                        </div>
-                        <div class="otp-container">
-                            <div class="otp-code">%s</div>
-                        </div>
-                        <div class="instructions">
-                            Nếu bạn không yêu cầu mã này, vui lòng bỏ qua email này.<br/>
-                            Để bảo mật tài khoản, hãy không chia sẻ mã OTP với bất kỳ ai.
-                        </div>
-                        <div class="footer">
-                            Cảm ơn bạn đã sử dụng dịch vụ của chúng tôi.<br/>
-                            Nếu bạn có thắc mắc, vui lòng liên hệ bộ phận hỗ trợ.
-                        </div>
-                    </div>
-                </div>
-                </body>
-                </html>
-        """.formatted(otp);
+    private String statusLabel(EOrderStatus status) {
+        return switch (status) {
+            case WAITING_FOR_PAYMENT -> "Chờ thanh toán";
+            case PENDING -> "Chờ xác nhận";
+            case CONFIRMED -> "Đã xác nhận";
+            case SHIPPING -> "Đang giao hàng";
+            case DELIVERED -> "Đã giao hàng";
+            case COMPLETED -> "Hoàn thành";
+            case CANCELED -> "Đã huỷ";
+        };
     }
 }
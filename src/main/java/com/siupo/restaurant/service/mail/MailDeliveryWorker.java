@@ -0,0 +1,312 @@
+package com.siupo.restaurant.service.mail;
+
+import com.siupo.restaurant.enums.EMailOutboxStatus;
+import com.siupo.restaurant.model.MailOutbox;
+import com.siupo.restaurant.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi email từ outbox bằng pool worker:
+ * - nhận từng email bằng UPDATE có điều kiện + lease nên nhiều replica chạy song song không gửi trùng
+ * - mỗi worker gửi một lô qua cùng một kết nối SMTP (JavaMailSender.send(MimeMessage...))
+ * - lỗi thì thử lại với backoff luỹ thừa, quá maxAttempts hoặc quá hạn thì chuyển FAILED
+ * - mọi cập nhật sau khi gửi đều kèm leaseToken, nên worker trễ (lease đã hết, email đã được nhận lại) không ghi đè
+ * Timeout SMTP (spring.mail.properties.mail.smtp.*timeout) phải nhỏ hơn nhiều so với app.mail.lease.
+ */
+@Slf4j
+@Component
+public class MailDeliveryWorker {
+    private static final String FROM_ADDRESS = "siupo@gmail.com";
+    private static final String FROM_NAME = "Siupo Restaurant";
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final ExecutorService mailDeliveryExecutor;
+    private final int workers;
+    private final int messagesPerConnection;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer sendDuration;
+    private final Timer deliveryLatency;
+
+    public MailDeliveryWorker(MailOutboxRepository mailOutboxRepository,
+                              ObjectProvider<JavaMailSender> mailSender,
+                              @Qualifier("mailDeliveryExecutor") ExecutorService mailDeliveryExecutor,
+                              @Value("${app.mail.workers:4}") int workers,
+                              @Value("${app.mail.messages-per-connection:20}") int messagesPerConnection,
+                              @Value("${app.mail.max-attempts:5}") int maxAttempts,
+                              @Value("${app.mail.initial-backoff:PT10S}") Duration initialBackoff,
+                              @Value("${app.mail.max-backoff:PT10M}") Duration maxBackoff,
+                              @Value("${app.mail.lease:PT2M}") Duration lease,
+                              MeterRegistry meterRegistry) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailSender = mailSender;
+        this.mailDeliveryExecutor = mailDeliveryExecutor;
+        this.workers = workers;
+        this.messagesPerConnection = messagesPerConnection;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.sent = Counter.builder("mail.outbox.delivered")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.retried = Counter.builder("mail.outbox.delivered")
+                .tag("result", "retry")
+                .register(meterRegistry);
+        this.failed = Counter.builder("mail.outbox.delivered")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.sendDuration = Timer.builder("mail.outbox.send.duration")
+                .description("Thời gian gửi một lô qua SMTP")
+                .register(meterRegistry);
+        this.deliveryLatency = Timer.builder("mail.outbox.latency")
+                .description("Từ lúc vào outbox tới lúc gửi thành công")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.depth", queueDepth, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.in.flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMailEnqueued(MailEnqueuedEvent event) {
+        try {
+            mailDeliveryExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Lượt poll định kỳ sẽ gửi
+            log.debug("Mail executor is shutting down, mail {} left for the next poll", event.mailId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.poll-interval:PT5S}")
+    public void poll() {
+        int expired = mailOutboxRepository.failExpired(LocalDateTime.now());
+        if (expired > 0) {
+            failed.increment(expired);
+        }
+        drain();
+        queueDepth.set(mailOutboxRepository.countByStatus(EMailOutboxStatus.PENDING));
+    }
+
+    /**
+     * Nhận email đến hạn vừa đủ cho số worker còn rảnh và giao cho pool; không chờ gửi xong.
+     * Nếu đang có lượt drain khác, chỉ đánh dấu để lượt đó chạy thêm một vòng.
+     */
+    void drain() {
+        if (mailSender.getIfAvailable() == null) {
+            return;
+        }
+        if (!draining.compareAndSet(false, true)) {
+            drainRequested.set(true);
+            return;
+        }
+        try {
+            do {
+                drainRequested.set(false);
+                int freeWorkers = workers - inFlight.get();
+                if (freeWorkers <= 0) {
+                    return;
+                }
+                List<MailOutbox> claimed = claimBatch(freeWorkers * messagesPerConnection);
+                for (int from = 0; from < claimed.size(); from += messagesPerConnection) {
+                    List<MailOutbox> chunk = claimed.subList(from, Math.min(from + messagesPerConnection, claimed.size()));
+                    inFlight.incrementAndGet();
+                    try {
+                        mailDeliveryExecutor.execute(() -> deliver(chunk));
+                    } catch (RejectedExecutionException e) {
+                        // Lease hết hạn thì email được nhận lại
+                        inFlight.decrementAndGet();
+                        return;
+                    }
+                }
+            } while (drainRequested.get());
+        } catch (Exception e) {
+            log.error("Failed to drain mail outbox", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private List<MailOutbox> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(lease);
+        String leaseToken = UUID.randomUUID().toString();
+        List<MailOutbox> claimed = new ArrayList<>();
+        for (MailOutbox mail : mailOutboxRepository.findDeliverable(now, PageRequest.of(0, limit))) {
+            if (mailOutboxRepository.claim(mail.getId(), now, leaseUntil, leaseToken) == 0) {
+                continue;
+            }
+            mail.setLeaseToken(leaseToken);
+            if (mail.getExpiresAt() != null && mail.getExpiresAt().isBefore(now)) {
+                mailOutboxRepository.markFailed(mail.getId(), leaseToken, mail.getAttempts(), "Expired before delivery");
+                failed.increment();
+                continue;
+            }
+            claimed.add(mail);
+        }
+        return claimed;
+    }
+
+    private void deliver(List<MailOutbox> mails) {
+        try {
+            JavaMailSender sender = mailSender.getObject();
+            Map<MimeMessage, MailOutbox> byMessage = new LinkedHashMap<>();
+            for (MailOutbox mail : mails) {
+                try {
+                    byMessage.put(buildMessage(sender, mail), mail);
+                } catch (MessagingException e) {
+                    fail(mail, e);
+                }
+            }
+            if (byMessage.isEmpty()) {
+                return;
+            }
+
+            Set<MimeMessage> failedMessages = new HashSet<>();
+            Timer.Sample sample = Timer.start();
+            try {
+                // Một lô dùng chung một kết nối SMTP
+                sender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    if (message instanceof MimeMessage mimeMessage && byMessage.containsKey(mimeMessage)) {
+                        failedMessages.add(mimeMessage);
+                        retryOrFail(byMessage.get(mimeMessage), cause);
+                    }
+                });
+                if (failedMessages.isEmpty()) {
+                    // Lỗi kết nối: không biết email nào đã gửi, thử lại cả lô
+                    byMessage.forEach((message, mail) -> {
+                        failedMessages.add(message);
+                        retryOrFail(mail, e);
+                    });
+                }
+            } catch (MailException e) {
+                byMessage.forEach((message, mail) -> {
+                    failedMessages.add(message);
+                    retryOrFail(mail, e);
+                });
+            } finally {
+                sample.stop(sendDuration);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            byMessage.forEach((message, mail) -> {
+                if (!failedMessages.contains(message)) {
+                    if (mailOutboxRepository.deleteSent(mail.getId(), mail.getLeaseToken()) == 0) {
+                        // Lease đã hết và email được worker khác nhận lại; có thể gửi trùng một lần
+                        log.warn("Mail {} was sent after its lease expired", mail.getId());
+                    }
+                    sent.increment();
+                    if (mail.getCreatedAt() != null) {
+                        deliveryLatency.record(Duration.between(mail.getCreatedAt(), now));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Unexpected error while delivering {} mails", mails.size(), e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        // Worker vừa rảnh: nhận tiếp nếu còn email đến hạn
+        try {
+            mailDeliveryExecutor.execute(this::drain);
+        } catch (RejectedExecutionException ignored) {
+            // Đang shutdown
+        }
+    }
+
+    private MimeMessage buildMessage(JavaMailSender sender, MailOutbox mail) throws MessagingException {
+        MimeMessage message = sender.createMimeMessage();
+        // Chỉ có một phần HTML nên không cần multipart
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        try {
+            helper.setFrom(FROM_ADDRESS, FROM_NAME);
+        } catch (UnsupportedEncodingException e) {
+            helper.setFrom(FROM_ADDRESS);
+        }
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(mail.getSubject());
+        helper.setText(mail.getBody() != null ? mail.getBody() : "", true);
+        return message;
+    }
+
+    private void retryOrFail(MailOutbox mail, Exception cause) {
+        int attempts = mail.getAttempts() + 1;
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+        boolean expired = mail.getExpiresAt() != null && mail.getExpiresAt().isBefore(nextAttemptAt);
+        if (attempts >= maxAttempts || expired) {
+            fail(mail, cause);
+            return;
+        }
+        if (mailOutboxRepository.markForRetry(mail.getId(), mail.getLeaseToken(), attempts, nextAttemptAt,
+                truncate(cause.getMessage())) == 0) {
+            log.warn("Mail {} lease expired before its retry could be recorded", mail.getId());
+            return;
+        }
+        retried.increment();
+        log.warn("Mail {} to {} failed (attempt {}/{}), retrying at {}: {}",
+                mail.getId(), mail.getRecipient(), attempts, maxAttempts, nextAttemptAt, cause.getMessage());
+    }
+
+    private void fail(MailOutbox mail, Exception cause) {
+        if (mailOutboxRepository.markFailed(mail.getId(), mail.getLeaseToken(), mail.getAttempts() + 1,
+                truncate(cause.getMessage())) == 0) {
+            log.warn("Mail {} lease expired before its failure could be recorded", mail.getId());
+            return;
+        }
+        failed.increment();
+        log.error("Mail {} to {} permanently failed: {}", mail.getId(), mail.getRecipient(), cause.getMessage());
+    }
+
+    // initialBackoff * 2^(attempts - 1), tối đa maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,7 @@
+package com.siupo.restaurant.service.mail;
+
+/**
+ * Phát ra khi có email mới trong outbox để worker gửi ngay thay vì chờ lượt poll kế tiếp
+ */
+public record MailEnqueuedEvent(Long mailId) {
+}
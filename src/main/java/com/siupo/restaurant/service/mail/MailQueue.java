@@ -0,0 +1,51 @@
+package com.siupo.restaurant.service.mail;
+
+import com.siupo.restaurant.enums.EMailOutboxStatus;
+import com.siupo.restaurant.model.MailOutbox;
+import com.siupo.restaurant.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Ghi email vào outbox (mail_outbox) rồi trả về ngay; MailDeliveryWorker gửi sau khi transaction commit
+ */
+@Component
+public class MailQueue {
+    private final MailOutboxRepository mailOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter enqueued;
+
+    public MailQueue(MailOutboxRepository mailOutboxRepository,
+                     ApplicationEventPublisher eventPublisher,
+                     MeterRegistry meterRegistry) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.enqueued = Counter.builder("mail.outbox.enqueued")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param validFor thời gian email còn ý nghĩa (null là không giới hạn); quá hạn thì không gửi/thử lại nữa
+     */
+    @Transactional
+    public Long enqueue(String recipient, String subject, String htmlBody, Duration validFor) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox mail = mailOutboxRepository.save(MailOutbox.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(htmlBody)
+                .status(EMailOutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .expiresAt(validFor != null ? now.plus(validFor) : null)
+                .build());
+        enqueued.increment();
+        eventPublisher.publishEvent(new MailEnqueuedEvent(mail.getId()));
+        return mail.getId();
+    }
+}
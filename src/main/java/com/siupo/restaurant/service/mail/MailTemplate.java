@@ -0,0 +1,93 @@
+package com.siupo.restaurant.service.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template đã biên dịch: chuỗi tĩnh xen kẽ với placeholder {{key}}.
+ * Parse một lần, render chỉ nối các đoạn tĩnh và giá trị đã escape HTML vào buffer truyền vào.
+ */
+public final class MailTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String name;
+    // segments.length == keys.length + 1
+    private final String[] segments;
+    private final String[] keys;
+    private final int staticLength;
+
+    private MailTemplate(String name, String[] segments, String[] keys) {
+        this.name = name;
+        this.segments = segments;
+        this.keys = keys;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.staticLength = length;
+    }
+
+    public static MailTemplate compile(String name, String source) {
+        List<String> segments = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in mail template " + name + " at " + open);
+            }
+            String key = source.substring(open + OPEN.length(), close).trim();
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder in mail template " + name + " at " + open);
+            }
+            segments.add(source.substring(position, open));
+            keys.add(key);
+            position = close + CLOSE.length();
+        }
+        segments.add(source.substring(position));
+        return new MailTemplate(name, segments.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Độ dài phần tĩnh, dùng để cấp sẵn dung lượng buffer
+     */
+    public int getStaticLength() {
+        return staticLength;
+    }
+
+    public void renderTo(StringBuilder out, Map<String, String> values) {
+        for (int i = 0; i < keys.length; i++) {
+            out.append(segments[i]);
+            String value = values.get(keys[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for {{" + keys[i] + "}} in mail template " + name);
+            }
+            appendEscaped(out, value);
+        }
+        out.append(segments[keys.length]);
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
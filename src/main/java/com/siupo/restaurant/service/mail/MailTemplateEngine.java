@@ -0,0 +1,64 @@
+package com.siupo.restaurant.service.mail;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Nạp và biên dịch các template trong classpath:templates/mail một lần khi khởi động.
+ * Render vào StringBuilder dùng lại theo thread nên mỗi lần gửi chỉ còn một lần cấp phát cho chuỗi kết quả.
+ */
+@Slf4j
+@Component
+public class MailTemplateEngine {
+    public static final String OTP = "otp";
+    public static final String BOOKING_CONFIRMATION = "booking-confirmation";
+    public static final String ORDER_STATUS = "order-status";
+
+    private static final String LOCATION = "templates/mail/";
+    // Buffer lớn hơn mức này sau khi render thì bỏ, tránh giữ bộ nhớ lâu dài
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private final Map<String, MailTemplate> templates = new HashMap<>();
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    @PostConstruct
+    public void loadTemplates() {
+        for (String name : new String[]{OTP, BOOKING_CONFIRMATION, ORDER_STATUS}) {
+            templates.put(name, MailTemplate.compile(name, read(name)));
+        }
+        log.info("Compiled {} mail templates", templates.size());
+    }
+
+    public String render(String name, Map<String, String> values) {
+        MailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown mail template " + name);
+        }
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(template.getStaticLength() + 256);
+        template.renderTo(buffer, values);
+        String html = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return html;
+    }
+
+    private String read(String name) {
+        try (InputStream in = new ClassPathResource(LOCATION + name + ".html").getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load mail template " + name, e);
+        }
+    }
+}
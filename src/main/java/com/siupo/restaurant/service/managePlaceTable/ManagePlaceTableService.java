@@ -1,7 +1,11 @@
 package com.siupo.restaurant.service.managePlaceTable;
 
+import com.siupo.restaurant.dto.response.BookingFeedItemResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.PlaceTableForCustomerResponse;
 import com.siupo.restaurant.dto.response.PlaceTableForGuestResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,7 +18,7 @@ public interface ManagePlaceTableService {
     /**
      * Lấy tất cả đơn đặt bàn của customer
      */
-    List<PlaceTableForCustomerResponse> getAllCustomerBookings();
+    Page<PlaceTableForCustomerResponse> getAllCustomerBookings(Pageable pageable);
 
     /**
      * Lấy chi tiết đơn đặt bàn customer theo ID
@@ -24,7 +28,7 @@ public interface ManagePlaceTableService {
     /**
      * Lấy đơn đặt bàn customer theo trạng thái
      */
-    List<PlaceTableForCustomerResponse> getCustomerBookingsByStatus(String status);
+    Page<PlaceTableForCustomerResponse> getCustomerBookingsByStatus(String status, Pageable pageable);
 
     /**
      * Lấy đơn đặt bàn customer theo khoảng thời gian
@@ -66,7 +70,7 @@ public interface ManagePlaceTableService {
     /**
      * Lấy tất cả yêu cầu đặt bàn của guest
      */
-    List<PlaceTableForGuestResponse> getAllGuestBookings();
+    Page<PlaceTableForGuestResponse> getAllGuestBookings(Pageable pageable);
 
     /**
      * Lấy chi tiết yêu cầu đặt bàn guest theo ID
@@ -76,12 +80,12 @@ public interface ManagePlaceTableService {
     /**
      * Lấy yêu cầu đặt bàn guest theo trạng thái
      */
-    List<PlaceTableForGuestResponse> getGuestBookingsByStatus(String status);
+    Page<PlaceTableForGuestResponse> getGuestBookingsByStatus(String status, Pageable pageable);
 
     /**
      * Lấy yêu cầu đặt bàn guest theo số điện thoại
      */
-    List<PlaceTableForGuestResponse> getGuestBookingsByPhone(String phoneNumber);
+    Page<PlaceTableForGuestResponse> getGuestBookingsByPhone(String phoneNumber, Pageable pageable);
 
     /**
      * Lấy yêu cầu đặt bàn guest theo khoảng thời gian
@@ -108,6 +112,13 @@ public interface ManagePlaceTableService {
      */
     PlaceTableForGuestResponse updateGuestBookingStatus(Long id, String status, String note);
 
+    // ============= COMBINED FEED =============
+
+    /**
+     * Danh sách gộp đặt bàn customer + guest, mới nhất trước, phân trang bằng cursor
+     */
+    CursorPageResponse<BookingFeedItemResponse> getBookingFeed(String status, String cursor, int size);
+
     // ============= STATISTICS =============
 
     /**
@@ -7,13 +7,24 @@ import com.siupo.restaurant.exception.business.BadRequestException;
 import com.siupo.restaurant.model.*;
 import com.siupo.restaurant.repository.PlaceTableForCustomerRepository;
 import com.siupo.restaurant.repository.PlaceTableForGuestRepository;
+import com.siupo.restaurant.repository.TableRepository;
+import com.siupo.restaurant.service.table.TableAvailabilityChangedEvent;
+import com.siupo.restaurant.service.table.TableAvailabilityEngine;
+import com.siupo.restaurant.service.table.TableSlotClaimEngine;
+import com.siupo.restaurant.util.KeysetCursor;
+import com.siupo.restaurant.util.PageableUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -25,18 +36,21 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
 
     private final PlaceTableForCustomerRepository customerRepository;
     private final PlaceTableForGuestRepository guestRepository;
+    private final TableRepository tableRepository;
+    private final TableAvailabilityEngine tableAvailabilityEngine;
+    private final TableSlotClaimEngine tableSlotClaimEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ============= CUSTOMER BOOKINGS =============
 
     @Override
-    public List<PlaceTableForCustomerResponse> getAllCustomerBookings() {
-        return customerRepository.findAll().stream()
-                .map(this::mapCustomerToResponse)
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt())) // Sắp xếp mới nhất trước
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<PlaceTableForCustomerResponse> getAllCustomerBookings(Pageable pageable) {
+        return customerRepository.findAll(pageable).map(this::mapCustomerToResponse);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PlaceTableForCustomerResponse getCustomerBookingById(Long id) {
         PlaceTableForCustomer booking = customerRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException(ErrorCode.LOI_CHUA_DAT));
@@ -45,20 +59,19 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
     }
 
     @Override
-    public List<PlaceTableForCustomerResponse> getCustomerBookingsByStatus(String status) {
+    @Transactional(readOnly = true)
+    public Page<PlaceTableForCustomerResponse> getCustomerBookingsByStatus(String status, Pageable pageable) {
         EPlaceTableStatus tableStatus = EPlaceTableStatus.valueOf(status.toUpperCase());
-        return customerRepository.findByStatus(tableStatus).stream()
-                .map(this::mapCustomerToResponse)
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .collect(Collectors.toList());
+        return customerRepository.findByStatus(tableStatus, pageable).map(this::mapCustomerToResponse);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PlaceTableForCustomerResponse> getCustomerBookingsByDateRange(
             LocalDateTime startDate, LocalDateTime endDate) {
-        return customerRepository.findByDateRange(startDate, endDate).stream()
+        return customerRepository.findByStartedAtBetween(startDate, endDate, Sort.by(Sort.Direction.DESC, "startedAt"))
+                .stream()
                 .map(this::mapCustomerToResponse)
-                .sorted((a, b) -> b.getStartedAt().compareTo(a.getStartedAt()))
                 .collect(Collectors.toList());
     }
 
@@ -119,14 +132,13 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
     // ============= GUEST BOOKINGS =============
 
     @Override
-    public List<PlaceTableForGuestResponse> getAllGuestBookings() {
-        return guestRepository.findAll().stream()
-                .map(this::mapGuestToResponse)
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<PlaceTableForGuestResponse> getAllGuestBookings(Pageable pageable) {
+        return guestRepository.findAll(pageable).map(this::mapGuestToResponse);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PlaceTableForGuestResponse getGuestBookingById(Long id) {
         PlaceTableForGuest booking = guestRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException(ErrorCode.LOI_CHUA_DAT));
@@ -135,28 +147,25 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
     }
 
     @Override
-    public List<PlaceTableForGuestResponse> getGuestBookingsByStatus(String status) {
+    @Transactional(readOnly = true)
+    public Page<PlaceTableForGuestResponse> getGuestBookingsByStatus(String status, Pageable pageable) {
         EPlaceTableStatus tableStatus = EPlaceTableStatus.valueOf(status.toUpperCase());
-        return guestRepository.findByStatus(tableStatus).stream()
-                .map(this::mapGuestToResponse)
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .collect(Collectors.toList());
+        return guestRepository.findByStatus(tableStatus, pageable).map(this::mapGuestToResponse);
     }
 
     @Override
-    public List<PlaceTableForGuestResponse> getGuestBookingsByPhone(String phoneNumber) {
-        return guestRepository.findByPhoneNumber(phoneNumber).stream()
-                .map(this::mapGuestToResponse)
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<PlaceTableForGuestResponse> getGuestBookingsByPhone(String phoneNumber, Pageable pageable) {
+        return guestRepository.findByPhoneNumber(phoneNumber, pageable).map(this::mapGuestToResponse);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PlaceTableForGuestResponse> getGuestBookingsByDateRange(
             LocalDateTime startDate, LocalDateTime endDate) {
-        return guestRepository.findByStartedAtBetween(startDate, endDate).stream()
+        return guestRepository.findByStartedAtBetween(startDate, endDate, Sort.by(Sort.Direction.DESC, "startedAt"))
+                .stream()
                 .map(this::mapGuestToResponse)
-                .sorted((a, b) -> b.getStartedAt().compareTo(a.getStartedAt()))
                 .collect(Collectors.toList());
     }
 
@@ -198,20 +207,86 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
         }
     }
 
+    // ============= COMBINED FEED =============
+
+    /**
+     * Gộp 2 nguồn đã sắp xếp (createdAt, id) giảm dần: mỗi nguồn lấy tối đa size + 1 bản ghi sau cursor
+     * của chính nó rồi merge. Token gồm 2 cursor "customer.guest" nên trang sau tiếp tục đúng vị trí từng nguồn.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<BookingFeedItemResponse> getBookingFeed(String status, String cursor, int size) {
+        EPlaceTableStatus tableStatus = status != null ? EPlaceTableStatus.valueOf(status.toUpperCase()) : null;
+        int pageSize = PageableUtil.normalizeKeysetSize(size);
+        KeysetCursor customerCursor = KeysetCursor.first();
+        KeysetCursor guestCursor = KeysetCursor.first();
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("\\.", -1);
+            if (parts.length != 2) {
+                throw new BadRequestException(ErrorCode.INVALID_CURSOR);
+            }
+            customerCursor = KeysetCursor.decode(parts[0]);
+            guestCursor = KeysetCursor.decode(parts[1]);
+        }
+
+        Pageable limit = PageableUtil.keysetLimit(pageSize);
+        List<PlaceTableForCustomer> customers = customerRepository.findFeedBefore(
+                tableStatus, customerCursor.createdAt(), customerCursor.id(), limit);
+        List<PlaceTableForGuest> guests = guestRepository.findFeedBefore(
+                tableStatus, guestCursor.createdAt(), guestCursor.id(), limit);
+
+        List<BookingFeedItemResponse> content = new ArrayList<>(pageSize);
+        int ci = 0;
+        int gi = 0;
+        while (content.size() < pageSize && (ci < customers.size() || gi < guests.size())) {
+            boolean takeCustomer = gi >= guests.size()
+                    || (ci < customers.size() && !customers.get(ci).getCreatedAt().isBefore(guests.get(gi).getCreatedAt()));
+            if (takeCustomer) {
+                PlaceTableForCustomer booking = customers.get(ci++);
+                customerCursor = new KeysetCursor(booking.getCreatedAt(), booking.getId());
+                content.add(BookingFeedItemResponse.builder()
+                        .type("CUSTOMER")
+                        .createdAt(booking.getCreatedAt())
+                        .customerBooking(mapCustomerToResponse(booking))
+                        .build());
+            } else {
+                PlaceTableForGuest booking = guests.get(gi++);
+                guestCursor = new KeysetCursor(booking.getCreatedAt(), booking.getId());
+                content.add(BookingFeedItemResponse.builder()
+                        .type("GUEST")
+                        .createdAt(booking.getCreatedAt())
+                        .guestBooking(mapGuestToResponse(booking))
+                        .build());
+            }
+        }
+
+        boolean hasNext = ci < customers.size() || gi < guests.size();
+        return CursorPageResponse.<BookingFeedItemResponse>builder()
+                .content(content)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? customerCursor.encode() + "." + guestCursor.encode() : null)
+                .build();
+    }
+
     // ============= STATISTICS =============
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getBookingStatistics() {
-        Long customerPending = customerRepository.countByStatus(EPlaceTableStatus.PENDING);
-        Long customerConfirmed = customerRepository.countByStatus(EPlaceTableStatus.CONFIRMED);
-        Long customerDenied = customerRepository.countByStatus(EPlaceTableStatus.DENIED);
-        Long customerCompleted = customerRepository.countByStatus(EPlaceTableStatus.COMPLETED);
+        // Mỗi loại booking chỉ 1 query GROUP BY status
+        Map<EPlaceTableStatus, Long> customerCounts = toStatusCounts(customerRepository.countGroupByStatus());
+        Map<EPlaceTableStatus, Long> guestCounts = toStatusCounts(guestRepository.countGroupByStatus());
 
-        List<PlaceTableForGuest> allGuests = guestRepository.findAll();
-        Long guestPending = allGuests.stream().filter(g -> g.getStatus() == EPlaceTableStatus.PENDING).count();
-        Long guestConfirmed = allGuests.stream().filter(g -> g.getStatus() == EPlaceTableStatus.CONFIRMED).count();
-        Long guestDenied = allGuests.stream().filter(g -> g.getStatus() == EPlaceTableStatus.DENIED).count();
-        Long guestCompleted = allGuests.stream().filter(g -> g.getStatus() == EPlaceTableStatus.COMPLETED).count();
+        Long customerPending = customerCounts.getOrDefault(EPlaceTableStatus.PENDING, 0L);
+        Long customerConfirmed = customerCounts.getOrDefault(EPlaceTableStatus.CONFIRMED, 0L);
+        Long customerDenied = customerCounts.getOrDefault(EPlaceTableStatus.DENIED, 0L);
+        Long customerCompleted = customerCounts.getOrDefault(EPlaceTableStatus.COMPLETED, 0L);
+
+        Long guestPending = guestCounts.getOrDefault(EPlaceTableStatus.PENDING, 0L);
+        Long guestConfirmed = guestCounts.getOrDefault(EPlaceTableStatus.CONFIRMED, 0L);
+        Long guestDenied = guestCounts.getOrDefault(EPlaceTableStatus.DENIED, 0L);
+        Long guestCompleted = guestCounts.getOrDefault(EPlaceTableStatus.COMPLETED, 0L);
 
         return Map.of(
                 "customer", Map.of(
@@ -240,20 +315,20 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getTodayBookings() {
         LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
         LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
 
+        Sort byStartedAt = Sort.by(Sort.Direction.ASC, "startedAt");
         List<PlaceTableForCustomerResponse> customerBookings =
-                customerRepository.findByDateRange(startOfDay, endOfDay).stream()
+                customerRepository.findByStartedAtBetween(startOfDay, endOfDay, byStartedAt).stream()
                         .map(this::mapCustomerToResponse)
-                        .sorted((a, b) -> a.getStartedAt().compareTo(b.getStartedAt()))
                         .collect(Collectors.toList());
 
         List<PlaceTableForGuestResponse> guestBookings =
-                guestRepository.findByStartedAtBetween(startOfDay, endOfDay).stream()
+                guestRepository.findByStartedAtBetween(startOfDay, endOfDay, byStartedAt).stream()
                         .map(this::mapGuestToResponse)
-                        .sorted((a, b) -> a.getStartedAt().compareTo(b.getStartedAt()))
                         .collect(Collectors.toList());
 
         return Map.of(
@@ -268,11 +343,47 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
 
     // ============= PRIVATE HELPER METHODS =============
 
+    private Map<EPlaceTableStatus, Long> toStatusCounts(List<Object[]> rows) {
+        Map<EPlaceTableStatus, Long> counts = new EnumMap<>(EPlaceTableStatus.class);
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put((EPlaceTableStatus) row[0], (Long) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * CONFIRMED: chốt bàn đang giữ hoặc claim bàn vừa nhất còn trống (409 nếu hết bàn); trạng thái khác: trả bàn.
+     * Claim nằm trong transaction của booking; chỉ mục được đồng bộ lại từ DB sau khi transaction kết thúc.
+     */
+    private TableEntity resolveTable(String bookingKey, Integer guests, LocalDateTime startedAt, EPlaceTableStatus status) {
+        if (startedAt == null) {
+            return null;
+        }
+        if (status != EPlaceTableStatus.CONFIRMED) {
+            tableSlotClaimEngine.release(bookingKey);
+            tableAvailabilityEngine.release(bookingKey, startedAt);
+            return null;
+        }
+        int partySize = guests != null ? guests : 1;
+        Long tableId = tableSlotClaimEngine.confirm(bookingKey, partySize, startedAt);
+        return tableRepository.getReferenceById(tableId);
+    }
+
+    private void publishAvailabilityChange(LocalDateTime startedAt) {
+        if (startedAt != null) {
+            eventPublisher.publishEvent(new TableAvailabilityChangedEvent(startedAt.toLocalDate()));
+        }
+    }
+
     private PlaceTableForCustomerResponse updateCustomerStatus(Long id, EPlaceTableStatus status, String note) {
         PlaceTableForCustomer booking = customerRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException(ErrorCode.LOI_CHUA_DAT));
 //                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn đặt bàn với ID: " + id));
 
+        booking.setTable(resolveTable(TableAvailabilityEngine.customerKey(id), booking.getMember(),
+                booking.getStartedAt(), status));
         booking.setStatus(status);
 
         if (note != null && !note.trim().isEmpty()) {
@@ -283,6 +394,7 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
         }
 
         PlaceTableForCustomer updated = customerRepository.save(booking);
+        publishAvailabilityChange(booking.getStartedAt());
         log.info("Updated customer booking {} to status: {}", id, status);
 
         // TODO: Send notification to customer
@@ -294,6 +406,8 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
                 .orElseThrow(() -> new BadRequestException(ErrorCode.LOI_CHUA_DAT));
 //                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy yêu cầu đặt bàn với ID: " + id));
 
+        booking.setTable(resolveTable(TableAvailabilityEngine.guestKey(id), booking.getMemberInt(),
+                booking.getStartedAt(), status));
         booking.setStatus(status);
 
         if (note != null && !note.trim().isEmpty()) {
@@ -304,6 +418,7 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
         }
 
         PlaceTableForGuest updated = guestRepository.save(booking);
+        publishAvailabilityChange(booking.getStartedAt());
         log.info("Updated guest booking {} to status: {}", id, status);
 
         // TODO: Send notification to guest (SMS/Email)
@@ -319,6 +434,7 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
                 .totalPrice(booking.getTotalPrice())
                 .phoneNumber(booking.getPhoneNumber())
                 .startedAt(booking.getStartedAt())
+                .tableId(booking.getTable() != null ? booking.getTable().getId() : null)
                 .createdAt(booking.getCreatedAt())
                 .updatedAt(booking.getUpdatedAt())
                 .note(booking.getNote())
@@ -341,6 +457,7 @@ public class ManagePlaceTableServiceImpl implements ManagePlaceTableService {
                 .memberInt(booking.getMemberInt())
                 .status(booking.getStatus())
                 .startedAt(booking.getStartedAt())
+                .tableId(booking.getTable() != null ? booking.getTable().getId() : null)
                 .note(booking.getNote())
                 .createdAt(booking.getCreatedAt())
                 .build();
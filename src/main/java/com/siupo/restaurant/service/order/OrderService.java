@@ -3,6 +3,7 @@ package com.siupo.restaurant.service.order;
 import com.siupo.restaurant.dto.OrderDTO;
 import com.siupo.restaurant.dto.request.CreateOrderRequest;
 import com.siupo.restaurant.dto.response.CreateOrderResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.enums.EOrderStatus;
 import com.siupo.restaurant.model.User;
 import org.springframework.data.domain.Page;
@@ -23,6 +24,8 @@ public interface OrderService {
 	// Admin methods
 	Page<OrderDTO> getAllOrders(Pageable pageable, EOrderStatus status);
 
+	CursorPageResponse<OrderDTO> getAllOrdersByCursor(EOrderStatus status, String cursor, int size, boolean includeTotal);
+
 	OrderDTO getOrderDetailById(Long id);
 
 	OrderDTO updateOrderStatus(Long id, EOrderStatus newStatus);
@@ -13,17 +13,23 @@ import com.siupo.restaurant.exception.business.BadRequestException;
 import com.siupo.restaurant.exception.business.NotFoundException;
 import com.siupo.restaurant.model.*;
 import com.siupo.restaurant.repository.*;
+import com.siupo.restaurant.service.mail.EmailService;
 import com.siupo.restaurant.service.payment.MomoPaymentService;
 import com.siupo.restaurant.service.voucher.VoucherService;
+import com.siupo.restaurant.util.KeysetCursor;
+import com.siupo.restaurant.util.PageableUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -33,19 +39,37 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final OrderItemRepository orderItemRepository;
     private final PaymentRepository paymentRepository;
     private final MomoPaymentService momoPaymentService;
     private final VoucherService voucherService;
-
+    private final TransactionTemplate transactionTemplate;
+    private final EmailService emailService;
+
+    /**
+     * Order, order items và payment được commit trước; lời gọi tạo thanh toán MoMo chạy sau commit
+     * để connection JDBC không bị giữ trong lúc chờ gateway.
+     * Cần spring.jpa.open-in-view=false: nếu bật OSIV, EntityManager của request giữ connection
+     * (DELAYED_ACQUISITION_AND_HOLD) cả sau khi transactionTemplate commit.
+     */
     @Override
-    @Transactional
     public CreateOrderResponse createOrder(CreateOrderRequest request, User user) {
+        PlacedOrder placed = transactionTemplate.execute(status -> {
+            Order order = placeOrder(request, user);
+            return new PlacedOrder(order, toCreateOrderResponse(order));
+        });
+        return attachMomoPayment(placed.order(), placed.response());
+    }
+
+    /**
+     * Checkout một lượt: cart item được index theo product/combo id, mỗi item request chỉ tra map 1 lần
+     * để kiểm tra, tính giá và đánh dấu xoá. Số câu lệnh SQL cố định, trừ insert order item (được batch).
+     */
+    private Order placeOrder(CreateOrderRequest request, User user) {
         Cart cart = cartRepository.findByUser(user)
                 .orElseThrow(() -> new BadRequestException(ErrorCode.LOI_CHUA_DAT));
 //                .orElseThrow(() -> new BadRequestException("Giỏ hàng trống"));
 
-        List<CartItem> cartItems = cartItemRepository.findByCart(cart);
+        List<CartItem> cartItems = cartItemRepository.findByCartFetchProductAndCombo(cart);
         if (cartItems.isEmpty()) {
             throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
 //            throw new BadRequestException("Giỏ hàng trống");
@@ -56,100 +80,67 @@ public class OrderServiceImpl implements OrderService {
 //            throw new BadRequestException("Danh sách sản phẩm đặt hàng không được để trống");
         }
 
-        // Kiểm tra sản phẩm/combo request có trong cart
-        for (CartItemDTO item : request.getItems()) {
-            CartItem ci = null;
-            String itemName = "";
-
-            // Tìm cart item tương ứng (product hoặc combo)
-            if (item.getProduct() != null && item.getProduct().getId() != null) {
-                ci = cartItems.stream()
-                        .filter(c -> c.getProduct() != null && c.getProduct().getId().equals(item.getProduct().getId()))
-                        .findFirst()
-                        .orElse(null);
-                if (ci != null) {
-                    itemName = ci.getProduct().getName();
-                }
-            } else if (item.getCombo() != null && item.getCombo().getId() != null) {
-                ci = cartItems.stream()
-                        .filter(c -> c.getCombo() != null && c.getCombo().getId().equals(item.getCombo().getId()))
-                        .findFirst()
-                        .orElse(null);
-                if (ci != null) {
-                    itemName = ci.getCombo().getName();
-                }
-            }
-
-            if (ci == null) {
-                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
-//                throw new BadRequestException("Sản phẩm/Combo không tồn tại trong giỏ hàng");
-            }
-
-            if (item.getQuantity() == null || item.getQuantity() <= 0) {
-                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
-//                throw new BadRequestException("Số lượng không hợp lệ");
-            }
-
-            if (!item.getQuantity().equals(ci.getQuantity())) {
-                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
-//                throw new BadRequestException("Số lượng " + itemName + " không khớp");
+        Map<Long, CartItem> cartItemsByProductId = new HashMap<>();
+        Map<Long, CartItem> cartItemsByComboId = new HashMap<>();
+        for (CartItem ci : cartItems) {
+            if (ci.getProduct() != null) {
+                cartItemsByProductId.putIfAbsent(ci.getProduct().getId(), ci);
+            } else if (ci.getCombo() != null) {
+                cartItemsByComboId.putIfAbsent(ci.getCombo().getId(), ci);
             }
         }
 
-        // Khởi tạo đơn hàng
+        // Khởi tạo đơn hàng (chỉ insert 1 lần ở cuối)
         Order order = Order.builder()
                 .user(user)
-                .items(new ArrayList<>())
                 .shippingAddress(request.getShippingAddress())
                 .status(EOrderStatus.PENDING)
                 .build();
 
-        order = orderRepository.save(order);
-
         double subTotal = 0.0;
-        List<OrderItem> orderItems = new ArrayList<>();
+        List<OrderItem> orderItems = new ArrayList<>(request.getItems().size());
+        List<Long> cartItemIdsToDelete = new ArrayList<>(request.getItems().size());
 
         for (CartItemDTO item : request.getItems()) {
-            CartItem cartItem = null;
-            double price = 0.0;
-
             // Tìm cart item tương ứng (product hoặc combo)
+            CartItem cartItem = null;
             if (item.getProduct() != null && item.getProduct().getId() != null) {
-                cartItem = cartItems.stream()
-                        .filter(ci -> ci.getProduct() != null && ci.getProduct().getId().equals(item.getProduct().getId()))
-                        .findFirst()
-                        .orElse(null);
-                if (cartItem != null) {
-                    price = cartItem.getProduct().getPrice();
-                }
+                cartItem = cartItemsByProductId.get(item.getProduct().getId());
             } else if (item.getCombo() != null && item.getCombo().getId() != null) {
-                cartItem = cartItems.stream()
-                        .filter(ci -> ci.getCombo() != null && ci.getCombo().getId().equals(item.getCombo().getId()))
-                        .findFirst()
-                        .orElse(null);
-                if (cartItem != null) {
-                    price = cartItem.getCombo().getBasePrice();
-                }
+                cartItem = cartItemsByComboId.get(item.getCombo().getId());
             }
 
             if (cartItem == null) {
-                continue; // Skip nếu không tìm thấy
+                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
+//                throw new BadRequestException("Sản phẩm/Combo không tồn tại trong giỏ hàng");
+            }
+
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
+//                throw new BadRequestException("Số lượng không hợp lệ");
             }
 
+            if (!item.getQuantity().equals(cartItem.getQuantity())) {
+                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
+//                throw new BadRequestException("Số lượng " + itemName + " không khớp");
+            }
+
+            double price = cartItem.getProduct() != null
+                    ? cartItem.getProduct().getPrice()
+                    : cartItem.getCombo().getBasePrice();
             subTotal += price * item.getQuantity();
 
-            OrderItem oi = OrderItem.builder()
+            orderItems.add(OrderItem.builder()
                     .order(order)
                     .product(cartItem.getProduct())
                     .combo(cartItem.getCombo())
                     .quantity(item.getQuantity())
                     .price(price)
                     .reviewed(false)
-                    .build();
-            orderItems.add(oi);
+                    .build());
+            cartItemIdsToDelete.add(cartItem.getId());
         }
 
-        orderItemRepository.saveAll(orderItems);
         order.setItems(orderItems);
 
         double vat = Math.round(subTotal * 0.1 * 100) / 100.0;
@@ -217,32 +208,18 @@ public class OrderServiceImpl implements OrderService {
         // Xử lý thanh toán
         Payment payment = handlePayment(order, total, request.getPaymentMethod());
         order.setPayment(payment);
+        // Order items được insert theo cascade cùng order
         orderRepository.save(order);
         
         // Record voucher usage after successful order creation
         if (appliedVoucher != null) {
-            voucherService.recordVoucherUsage(appliedVoucher, user, order.getId(), discountAmount);
+            voucherService.recordVoucherUsage(appliedVoucher, user, order, discountAmount);
         }
 
-        // Xóa sản phẩm/combo trong cart
-        List<Long> itemIdsToDelete = new ArrayList<>();
-        for (CartItemDTO item : request.getItems()) {
-            if (item.getProduct() != null && item.getProduct().getId() != null) {
-                cartItems.stream()
-                        .filter(ci -> ci.getProduct() != null && ci.getProduct().getId().equals(item.getProduct().getId()))
-                        .findFirst()
-                        .ifPresent(ci -> itemIdsToDelete.add(ci.getId()));
-            } else if (item.getCombo() != null && item.getCombo().getId() != null) {
-                cartItems.stream()
-                        .filter(ci -> ci.getCombo() != null && ci.getCombo().getId().equals(item.getCombo().getId()))
-                        .findFirst()
-                        .ifPresent(ci -> itemIdsToDelete.add(ci.getId()));
-            }
-        }
-        cartItemRepository.deleteAllById(itemIdsToDelete);
+        // Xóa sản phẩm/combo trong cart bằng 1 câu DELETE
+        cartItemRepository.deleteAllByIdInBatch(cartItemIdsToDelete);
 
-        // Trả response
-        return buildCreateOrderResponse(order, request);
+        return order;
     }
 
     private Payment handlePayment(Order order, double total, EPaymentMethod method) {
@@ -271,9 +248,8 @@ public class OrderServiceImpl implements OrderService {
 //        throw new BadRequestException("Phương thức thanh toán không hợp lệ");
     }
 
-    private CreateOrderResponse buildCreateOrderResponse(Order order, CreateOrderRequest request) {
-
-        CreateOrderResponse.CreateOrderResponseBuilder responseBuilder = CreateOrderResponse.builder()
+    private CreateOrderResponse toCreateOrderResponse(Order order) {
+        return CreateOrderResponse.builder()
                 .orderId(order.getId())
                 .status(order.getStatus())
                 .totalPrice(order.getTotalPrice())
@@ -287,42 +263,54 @@ public class OrderServiceImpl implements OrderService {
                 )
                 .voucherCode(order.getVoucher() != null ? order.getVoucher().getCode() : null)
                 .discountAmount(order.getDiscountAmount())
-                .finalAmount(order.getTotalPrice());
+                .finalAmount(order.getTotalPrice())
+                .build();
+    }
 
-        if (order.getPayment() != null && order.getPayment().getPaymentMethod() == EPaymentMethod.MOMO) {
+    /**
+     * Gọi MoMo ngoài transaction. Nếu thất bại, đơn hàng vẫn giữ payment PROCESSING
+     * và client có thể lấy lại payUrl qua GET /api/orders/{id}.
+     */
+    private CreateOrderResponse attachMomoPayment(Order order, CreateOrderResponse response) {
+        if (order.getPayment() != null
+                && order.getPayment().getPaymentMethod() == EPaymentMethod.MOMO
+                && order.getPayment().getStatus() == EPaymentStatus.PROCESSING) {
             try {
                 MomoPaymentResponse momoResponse = momoPaymentService.createPayment(order);
-                responseBuilder.payUrl(momoResponse.getPayUrl())
-                        .qrCodeUrl(momoResponse.getQrCodeUrl())
-                        .deeplink(momoResponse.getDeeplink());
+                response.setPayUrl(momoResponse.getPayUrl());
+                response.setQrCodeUrl(momoResponse.getQrCodeUrl());
+                response.setDeeplink(momoResponse.getDeeplink());
             } catch (Exception e) {
                 log.error("Failed to create MoMo payment URL for Order #{}: {}", order.getId(), e.getMessage());
             }
         }
+        return response;
+    }
 
-        return responseBuilder.build();
+    private record PlacedOrder(Order order, CreateOrderResponse response) {
     }
 
 
     @Override
-    @Transactional(readOnly = true)
     public CreateOrderResponse getOrderById(Long id, User user) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException(ErrorCode.LOI_CHUA_DAT));
-//                .orElseThrow(() -> new NotFoundException("Không tìm thấy đơn hàng"));
+        PlacedOrder placed = transactionTemplate.execute(status -> {
+            Order order = orderRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException(ErrorCode.LOI_CHUA_DAT));
+//                    .orElseThrow(() -> new NotFoundException("Không tìm thấy đơn hàng"));
 
-        if (!order.getUser().getId().equals(user.getId())) {
-            throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
-//            throw new BadRequestException("Bạn không có quyền xem đơn hàng này");
-        }
-
-        return buildCreateOrderResponse(order, null);
+            if (!order.getUser().getId().equals(user.getId())) {
+                throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
+//                throw new BadRequestException("Bạn không có quyền xem đơn hàng này");
+            }
+            return new PlacedOrder(order, toCreateOrderResponse(order));
+        });
+        return attachMomoPayment(placed.order(), placed.response());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUser(User user) {
-        List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
+        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
         return orders.stream()
                 .map(OrderDTO::toDTO)
                 .toList();
@@ -364,6 +352,7 @@ public class OrderServiceImpl implements OrderService {
         // Cập nhật trạng thái đơn hàng
         order.setStatus(EOrderStatus.CANCELED);
         orderRepository.save(order);
+        voucherService.releaseVoucherUsage(order);
 
         return OrderDTO.toDTO(order);
     }
@@ -382,6 +371,23 @@ public class OrderServiceImpl implements OrderService {
         return orders.map(OrderDTO::toDTO);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderDTO> getAllOrdersByCursor(EOrderStatus status, String cursor, int size, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageableUtil.keysetLimit(size);
+        List<Order> orders = status != null
+                ? orderRepository.findByStatusBefore(status, after.createdAt(), after.id(), limit)
+                : orderRepository.findAllBefore(after.createdAt(), after.id(), limit);
+        Long total = null;
+        if (includeTotal) {
+            total = status != null ? orderRepository.countByStatus(status) : orderRepository.count();
+        }
+        return PageableUtil.toCursorPage(orders, size,
+                order -> new KeysetCursor(order.getCreatedAt(), order.getId()),
+                OrderDTO::toDTO, total);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public OrderDTO getOrderDetailById(Long id) {
@@ -406,6 +412,15 @@ public class OrderServiceImpl implements OrderService {
 
         order.setStatus(newStatus);
         orderRepository.save(order);
+        if (newStatus == EOrderStatus.CANCELED) {
+            voucherService.releaseVoucherUsage(order);
+        }
+        // Email vào outbox cùng transaction, chỉ được gửi khi cập nhật commit thành công
+        User customer = order.getUser();
+        if (customer != null && customer.getEmail() != null) {
+            emailService.sendOrderStatusUpdate(customer.getEmail(), customer.getFullName(), order.getId(),
+                    newStatus, order.getTotalPrice());
+        }
 
         return OrderDTO.toDTO(order);
     }
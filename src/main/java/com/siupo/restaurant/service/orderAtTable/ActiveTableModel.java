@@ -0,0 +1,122 @@
+package com.siupo.restaurant.service.orderAtTable;
+
+import com.siupo.restaurant.dto.response.OrderAtTableResponse;
+import com.siupo.restaurant.enums.EOrderStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Trạng thái các đơn tại bàn đang mở (chưa COMPLETED/CANCELED) trong bộ nhớ, để đọc đơn và bàn không cần query DB.
+ * Database vẫn là nơi ghi: mỗi đơn được nạp lại từ DB sau khi thay đổi đã commit (sự kiện cục bộ và
+ * OrderAtTableSyncEvent từ replica khác), các lần nạp cùng một đơn được tuần tự hoá nên bản ghi sau cùng luôn là
+ * trạng thái đã commit mới nhất. Định kỳ model được đối chiếu lại với DB để bù các sự kiện bị lỡ.
+ * Chỉ bật khi luồng bếp fan-out qua Redis (app.kitchen.stream.redis-enabled): không có kênh đó thì replica khác
+ * không biết đơn đã đổi, nên các lần đọc đi thẳng DB.
+ */
+@Component
+public class ActiveTableModel {
+    public static final Set<EOrderStatus> CLOSED_STATUSES = EnumSet.of(EOrderStatus.COMPLETED, EOrderStatus.CANCELED);
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<Long, OrderAtTableResponse> openOrders = new ConcurrentHashMap<>();
+    // Thời điểm (nanoTime) bắt đầu đọc DB của lần refresh gần nhất, để snapshot cũ hơn không ghi đè
+    private final Map<Long, Long> refreshedAt = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final boolean enabled;
+    private volatile boolean loaded;
+
+    public ActiveTableModel(MeterRegistry meterRegistry,
+                            @Value("${app.kitchen.stream.redis-enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        Gauge.builder("order.at.table.active.orders", openOrders, Map::size)
+                .register(meterRegistry);
+    }
+
+    public static boolean isOpen(EOrderStatus status) {
+        return status != null && !CLOSED_STATUSES.contains(status);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Optional<OrderAtTableResponse> getOrder(Long orderId) {
+        return Optional.ofNullable(openOrders.get(orderId));
+    }
+
+    /**
+     * Các đơn đang mở của bàn, cũ nhất trước
+     */
+    public List<OrderAtTableResponse> getOpenOrders(Long tableId) {
+        return openOrders.values().stream()
+                .filter(order -> tableId.equals(order.getTableId()))
+                .sorted(Comparator.comparing(OrderAtTableResponse::getCreatedAt,
+                                Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(OrderAtTableResponse::getOrderId))
+                .toList();
+    }
+
+    /**
+     * Thay toàn bộ model bằng snapshot đọc từ DB bắt đầu lúc snapshotStartedAt (System.nanoTime());
+     * đơn đã được refresh sau thời điểm đó giữ nguyên vì mới hơn snapshot
+     */
+    public void replaceAll(Collection<OrderAtTableResponse> orders, long snapshotStartedAt) {
+        Map<Long, OrderAtTableResponse> snapshot = new HashMap<>();
+        for (OrderAtTableResponse order : orders) {
+            if (isOpen(order.getStatus())) {
+                snapshot.put(order.getOrderId(), order);
+            }
+        }
+        Set<Long> orderIds = new HashSet<>(openOrders.keySet());
+        orderIds.addAll(snapshot.keySet());
+        for (Long orderId : orderIds) {
+            synchronized (lockFor(orderId)) {
+                Long refreshed = refreshedAt.get(orderId);
+                if (refreshed != null && refreshed - snapshotStartedAt >= 0) {
+                    continue;
+                }
+                OrderAtTableResponse order = snapshot.get(orderId);
+                if (order != null) {
+                    openOrders.put(orderId, order);
+                } else {
+                    openOrders.remove(orderId);
+                }
+            }
+        }
+        refreshedAt.values().removeIf(refreshed -> refreshed - snapshotStartedAt < 0);
+        loaded = true;
+    }
+
+    /**
+     * Nạp lại một đơn từ DB; đơn không còn hoặc đã đóng thì bỏ khỏi model
+     */
+    public void refresh(Long orderId, Supplier<Optional<OrderAtTableResponse>> loader) {
+        synchronized (lockFor(orderId)) {
+            long startedAt = System.nanoTime();
+            Optional<OrderAtTableResponse> order = loader.get();
+            if (order.isPresent() && isOpen(order.get().getStatus())) {
+                openOrders.put(orderId, order.get());
+            } else {
+                openOrders.remove(orderId);
+            }
+            refreshedAt.put(orderId, startedAt);
+        }
+    }
+
+    private Object lockFor(Long orderId) {
+        return locks[Math.floorMod(orderId.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,341 @@
+package com.siupo.restaurant.service.orderAtTable;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siupo.restaurant.dto.response.KitchenOrderEventResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Luồng SSE cho màn hình bếp/phục vụ thay cho việc poll danh sách đơn tại bàn.
+ * Sau khi transaction commit, mỗi thay đổi nhận một id tăng dần và được lưu vào lịch sử ngắn (replay-size);
+ * khi bật redis-enabled, id cấp bằng Redis INCR, lịch sử nằm trong một sorted set và sự kiện được fan-out
+ * qua pub/sub để mọi replica đẩy tới subscriber của mình. Client kết nối lại với Last-Event-ID
+ * chỉ nhận các sự kiện sau id đó. Khi bật Redis, id chỉ lấy từ Redis (lỗi thì thử lại rồi bỏ sự kiện),
+ * không trộn với id cục bộ. Việc ghi tới từng client chạy trên executor theo hàng đợi riêng của subscriber,
+ * nên client chậm không chặn thread đã commit đơn. Mỗi sự kiện nhận qua Redis cũng được phát lại trong ứng dụng dưới dạng
+ * OrderAtTableSyncEvent để các model trong bộ nhớ của replica này cập nhật theo; sự kiện cục bộ thì không,
+ * vì model đã tự nạp lại từ OrderAtTableChangedEvent.
+ */
+@Slf4j
+@Component
+public class KitchenOrderStream {
+    public static final String CHANNEL = "kitchen:orders";
+    private static final String SEQUENCE_KEY = "kitchen:orders:seq";
+    private static final String HISTORY_KEY = "kitchen:orders:history";
+    private static final String EVENT_NAME = "order";
+    private static final int PUBLISH_ATTEMPTS = 3;
+    // Marker cho heartbeat trong hàng đợi của subscriber
+    private static final StreamEvent PING = new StreamEvent(-1, null, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService fanOutExecutor;
+    private final boolean redisEnabled;
+    private final int replaySize;
+    private final long timeoutMillis;
+    private final int maxPending;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Deque<StreamEvent> history = new ArrayDeque<>();
+    // Khởi tạo theo thời gian để id vẫn tăng sau khi restart (chế độ không Redis)
+    private final AtomicLong localSequence = new AtomicLong(System.currentTimeMillis());
+
+    public KitchenOrderStream(ObjectMapper objectMapper,
+                              ObjectProvider<StringRedisTemplate> redisTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Qualifier("virtualThreadExecutor") ExecutorService fanOutExecutor,
+                              @Value("${app.kitchen.stream.redis-enabled:false}") boolean redisEnabled,
+                              @Value("${app.kitchen.stream.replay-size:500}") int replaySize,
+                              @Value("${app.kitchen.stream.timeout:PT30M}") Duration timeout,
+                              @Value("${app.kitchen.stream.max-pending:1000}") int maxPending,
+                              MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.fanOutExecutor = fanOutExecutor;
+        this.redisEnabled = redisEnabled;
+        this.replaySize = replaySize;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxPending = maxPending;
+        Gauge.builder("kitchen.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+    }
+
+    // Định dạng truyền/lưu: "id|orderId|tableId|payload"
+    private record StreamEvent(long id, Long orderId, Long tableId, String payload) {
+        String encode() {
+            return id + "|" + orderId + "|" + (tableId != null ? tableId : "") + "|" + payload;
+        }
+
+        static StreamEvent decode(String message) {
+            int first = message.indexOf('|');
+            int second = message.indexOf('|', first + 1);
+            int third = message.indexOf('|', second + 1);
+            if (first < 0 || second < 0 || third < 0) {
+                throw new IllegalArgumentException("Malformed kitchen stream message");
+            }
+            String table = message.substring(second + 1, third);
+            return new StreamEvent(Long.parseLong(message.substring(0, first)),
+                    Long.valueOf(message.substring(first + 1, second)),
+                    table.isEmpty() ? null : Long.valueOf(table),
+                    message.substring(third + 1));
+        }
+    }
+
+    /**
+     * Đăng ký nhận sự kiện; tableId == null là nhận mọi bàn.
+     * Có lastEventId thì gửi lại các sự kiện sau id đó (trong phạm vi lịch sử) trước khi nhận sự kiện mới.
+     */
+    public SseEmitter subscribe(Long tableId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, tableId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        long lastId = parseEventId(lastEventId);
+        // Giữ lock của subscriber trong lúc replay để sự kiện mới đến cùng lúc xếp sau phần replay.
+        // Chỉ bỏ trùng theo id đã thực sự replay: id client gửi có thể thuộc không gian id khác (replica khác)
+        synchronized (subscriber) {
+            subscribers.add(subscriber);
+            if (lastId >= 0) {
+                for (StreamEvent event : eventsAfter(lastId)) {
+                    subscriber.write(event);
+                    subscriber.replayedUpTo = Math.max(subscriber.replayedUpTo, event.id());
+                }
+            }
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderAtTableChangedEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(KitchenOrderEventResponse.builder()
+                    .type(event.getType())
+                    .orderId(event.getOrderId())
+                    .tableId(event.getTableId())
+                    .order(event.getOrder())
+                    .occurredAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize kitchen event for order {}", event.getOrderId(), e);
+            return;
+        }
+
+        if (redisEnabled) {
+            // Replica này cũng nhận lại qua pub/sub (onRemoteEvent) nên không dispatch trực tiếp
+            publishToRedis(event.getOrderId(), event.getTableId(), payload);
+            return;
+        }
+        dispatch(new StreamEvent(localSequence.incrementAndGet(), event.getOrderId(), event.getTableId(), payload));
+    }
+
+    public void onRemoteEvent(String message) {
+        StreamEvent event;
+        try {
+            event = StreamEvent.decode(message);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring invalid kitchen stream message: {}", e.getMessage());
+            return;
+        }
+        dispatch(event);
+        eventPublisher.publishEvent(new OrderAtTableSyncEvent(event.orderId()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.kitchen.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(PING);
+        }
+    }
+
+    private void publishToRedis(Long orderId, Long tableId, String payload) {
+        for (int attempt = 1; attempt <= PUBLISH_ATTEMPTS; attempt++) {
+            try {
+                StringRedisTemplate template = redisTemplate.getObject();
+                Long id = template.opsForValue().increment(SEQUENCE_KEY);
+                if (id == null) {
+                    continue;
+                }
+                String message = new StreamEvent(id, orderId, tableId, payload).encode();
+                template.opsForZSet().add(HISTORY_KEY, message, id);
+                template.opsForZSet().removeRange(HISTORY_KEY, 0, -(replaySize + 1L));
+                template.convertAndSend(CHANNEL, message);
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to publish kitchen event for order {} (attempt {}/{}): {}",
+                        orderId, attempt, PUBLISH_ATTEMPTS, e.getMessage());
+            }
+        }
+        // Không cấp id cục bộ để không trộn hai không gian id; màn hình bếp sẽ nhận trạng thái mới ở sự kiện sau
+        log.error("Dropping kitchen event for order {} after {} attempts", orderId, PUBLISH_ATTEMPTS);
+    }
+
+    private void dispatch(StreamEvent event) {
+        synchronized (history) {
+            history.addLast(event);
+            while (history.size() > replaySize) {
+                history.removeFirst();
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(event);
+        }
+    }
+
+    private List<StreamEvent> eventsAfter(long lastId) {
+        if (redisEnabled) {
+            try {
+                Set<String> messages = redisTemplate.getObject().opsForZSet()
+                        .rangeByScore(HISTORY_KEY, lastId + 1, Double.POSITIVE_INFINITY);
+                if (messages != null) {
+                    List<StreamEvent> events = new ArrayList<>(messages.size());
+                    for (String message : messages) {
+                        events.add(StreamEvent.decode(message));
+                    }
+                    return events;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read kitchen stream history from Redis, using local history: {}", e.getMessage());
+            }
+        }
+        synchronized (history) {
+            return history.stream()
+                    .filter(event -> event.id() > lastId)
+                    .toList();
+        }
+    }
+
+    private long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long tableId;
+        private final Queue<StreamEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private long replayedUpTo = -1;
+
+        Subscriber(SseEmitter emitter, Long tableId) {
+            this.emitter = emitter;
+            this.tableId = tableId;
+        }
+
+        /**
+         * Xếp sự kiện vào hàng đợi riêng và giao việc ghi cho executor; mỗi subscriber chỉ có một lượt ghi
+         * tại một thời điểm nên thứ tự được giữ. Client không theo kịp thì bị đóng để kết nối lại bằng Last-Event-ID.
+         */
+        void enqueue(StreamEvent event) {
+            if (pendingCount.incrementAndGet() > maxPending) {
+                log.warn("Kitchen stream subscriber is too slow, closing it");
+                close();
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                fanOutExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamEvent event;
+                while ((event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    if (event == PING) {
+                        ping();
+                    } else {
+                        write(event);
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Sự kiện đến sau lần poll cuối nhưng trước khi nhả cờ
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        synchronized void write(StreamEvent event) {
+            if (event.id() <= replayedUpTo) {
+                return;
+            }
+            if (tableId != null && !tableId.equals(event.tableId())) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.id()))
+                        .name(EVENT_NAME)
+                        .data(event.payload(), MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private synchronized void ping() {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            pending.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // Đã đóng
+            }
+        }
+    }
+}
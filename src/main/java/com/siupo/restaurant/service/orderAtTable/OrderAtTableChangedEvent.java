@@ -0,0 +1,24 @@
+package com.siupo.restaurant.service.orderAtTable;
+
+import com.siupo.restaurant.dto.response.OrderAtTableResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra trong transaction khi đơn tại bàn được tạo/đổi trạng thái/gắn thanh toán/thanh toán/xoá; luồng bếp chỉ nhận sau commit
+ */
+@Getter
+@AllArgsConstructor
+public class OrderAtTableChangedEvent {
+    public static final String CREATED = "CREATED";
+    public static final String STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String PAID = "PAID";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private final String type;
+    private final Long orderId;
+    private final Long tableId;
+    // null khi DELETED
+    private final OrderAtTableResponse order;
+}
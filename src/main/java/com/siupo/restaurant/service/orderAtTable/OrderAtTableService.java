@@ -1,11 +1,14 @@
 package com.siupo.restaurant.service.orderAtTable;
 
 import com.siupo.restaurant.dto.request.OrderAtTableRequest;
+import com.siupo.restaurant.dto.response.ActiveTableResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.OrderAtTableResponse;
 import com.siupo.restaurant.enums.EOrderStatus;
 import com.siupo.restaurant.enums.EPaymentMethod;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 public interface OrderAtTableService {
 
@@ -13,11 +16,17 @@ public interface OrderAtTableService {
 
     OrderAtTableResponse getOrderById(Long orderId);
 
+    ActiveTableResponse getActiveTable(Long tableId);
+
     Page<OrderAtTableResponse> getAllOrders(Long tableId, EOrderStatus status, Pageable pageable);
 
+    CursorPageResponse<OrderAtTableResponse> getAllOrdersByCursor(EOrderStatus status, String cursor, int size, boolean includeTotal);
+
     OrderAtTableResponse updateOrderStatus(Long orderId, EOrderStatus status);
 
     OrderAtTableResponse processPayment(Long orderId, EPaymentMethod paymentMethod);
 
     void deleteOrder(Long orderId);
+
+    SseEmitter streamOrders(Long tableId, String lastEventId);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.siupo.restaurant.service.orderAtTable;
 
 import com.siupo.restaurant.dto.request.OrderAtTableRequest;
+import com.siupo.restaurant.dto.response.ActiveTableResponse;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.OrderAtTableResponse;
 import com.siupo.restaurant.dto.response.OrderItemResponse;
 import com.siupo.restaurant.dto.response.ProductSimpleResponse;
@@ -12,19 +14,33 @@ import com.siupo.restaurant.enums.EProductStatus;
 import com.siupo.restaurant.exception.base.ErrorCode;
 import com.siupo.restaurant.exception.business.NotFoundException;
 import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.exception.business.ResourceNotFoundException;
 import com.siupo.restaurant.model.*;
 import com.siupo.restaurant.repository.*;
 import com.siupo.restaurant.service.payment.MomoPaymentService;
+import com.siupo.restaurant.util.KeysetCursor;
+import com.siupo.restaurant.util.PageableUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,10 +55,36 @@ public class OrderAtTableServiceImpl implements OrderAtTableService {
     private final OrderItemRepository orderItemRepository;
     private final PaymentRepository paymentRepository;
     private final MomoPaymentService momoPaymentService;
-
+    private final TransactionTemplate transactionTemplate;
+    private final KitchenOrderStream kitchenOrderStream;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ActiveTableModel activeTableModel;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Đơn hàng được commit trước, sau đó mới gọi MoMo ngoài transaction;
+     * payment chỉ được gắn vào đơn (trong transaction ngắn riêng) khi MoMo trả về payUrl.
+     * Connection chỉ được trả về pool giữa hai transaction khi tắt open-in-view (xem application-prod.properties).
+     */
     @Override
-    @Transactional
     public OrderAtTableResponse createOrder(OrderAtTableRequest request) {
+        OrderAtTableResponse response = transactionTemplate.execute(status -> placeOrder(request));
+        if (request.getPaymentMethod() == EPaymentMethod.MOMO) {
+            String payUrl = requestMomoPayUrl(response.getOrderId(), response.getTotalAmount());
+            if (payUrl != null) {
+                transactionTemplate.executeWithoutResult(status -> linkMomoPayment(response.getOrderId()));
+                response.setPaymentMethod(EPaymentMethod.MOMO);
+                response.setIsPaid(true);
+                response.setPayUrl(payUrl);
+            }
+        } else if (request.getPaymentMethod() == EPaymentMethod.COD) {
+            // COD - thanh toán sau, không cần tạo payment ngay
+            log.info("Order created with COD payment method - pay later");
+        }
+        return response;
+    }
+
+    private OrderAtTableResponse placeOrder(OrderAtTableRequest request) {
         log.info("Creating order at table for table ID: {}", request.getTableId());
 
         // Kiểm tra bàn có tồn tại không
@@ -135,64 +177,169 @@ public class OrderAtTableServiceImpl implements OrderAtTableService {
         savedOrder.setItems(orderItems);
         savedOrder.setTotalPrice(totalAmount);
 
-        // Xử lý thanh toán nếu có paymentMethod
-        String payUrl = null;
-        if (request.getPaymentMethod() != null) {
-            if (request.getPaymentMethod() == EPaymentMethod.MOMO) {
-                // Tạo temporary Order để gọi MomoPaymentService
-                // Vì MomoPaymentService.createPayment() nhận Order object
-                Order tempOrder = Order.builder()
-                        .id(savedOrder.getId())
-                        .totalPrice(totalAmount)
-                        .build();
-
-                try {
-                    MomoPaymentResponse momoResponse = momoPaymentService.createPayment(tempOrder);
-                    if (momoResponse != null && momoResponse.getPayUrl() != null) {
-                        payUrl = momoResponse.getPayUrl();
-                        log.info("MoMo payment URL created: {}", payUrl);
-
-                        // Tạo Payment record và link với OrderAtTable
-                        Payment payment = Payment.builder()
-                                .paymentMethod(EPaymentMethod.MOMO)
-                                .status(EPaymentStatus.PROCESSING)
-                                .build();
-                        Payment savedPayment = paymentRepository.save(payment);
-                        savedOrder.setPayment(savedPayment);
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to create MoMo payment", e);
-                    // Continue without payment - order still created
-                }
-            } else if (request.getPaymentMethod() == EPaymentMethod.COD) {
-                // COD - thanh toán sau, không cần tạo payment ngay
-                log.info("Order created with COD payment method - pay later");
-            }
-        }
-
         orderAtTableRepository.save(savedOrder);
 
         log.info("Order created successfully with ID: {}", savedOrder.getId());
 
         OrderAtTableResponse response = buildOrderResponse(savedOrder, totalAmount);
-        response.setPayUrl(payUrl);
+        publishChange(OrderAtTableChangedEvent.CREATED, response);
         return response;
     }
 
+    private String requestMomoPayUrl(Long orderId, double totalAmount) {
+        // Tạo temporary Order để gọi MomoPaymentService
+        // Vì MomoPaymentService.createPayment() nhận Order object
+        Order tempOrder = Order.builder()
+                .id(orderId)
+                .totalPrice(totalAmount)
+                .build();
+        try {
+            MomoPaymentResponse momoResponse = momoPaymentService.createPayment(tempOrder);
+            if (momoResponse != null && momoResponse.getPayUrl() != null) {
+                log.info("MoMo payment URL created: {}", momoResponse.getPayUrl());
+                return momoResponse.getPayUrl();
+            }
+        } catch (Exception e) {
+            log.error("Failed to create MoMo payment", e);
+            // Continue without payment - order still created
+        }
+        return null;
+    }
+
+    private void linkMomoPayment(Long orderId) {
+        OrderAtTable order = orderAtTableRepository.findById(orderId)
+                .orElseThrow(() -> new NotFoundException(ErrorCode.LOI_CHUA_DAT));
+        // Tạo Payment record và link với OrderAtTable
+        Payment payment = Payment.builder()
+                .paymentMethod(EPaymentMethod.MOMO)
+                .status(EPaymentStatus.PROCESSING)
+                .build();
+        order.setPayment(paymentRepository.save(payment));
+        orderAtTableRepository.save(order);
+        publishChange(OrderAtTableChangedEvent.UPDATED, buildOrderResponse(order, totalOf(order)));
+    }
+
+    /**
+     * Khi ActiveTableModel bật, đơn đang mở đọc từ bộ nhớ; còn lại query DB
+     */
     @Override
-    @Transactional(readOnly = true)
     public OrderAtTableResponse getOrderById(Long orderId) {
         log.info("Getting order by ID: {}", orderId);
 
-        OrderAtTable order = orderAtTableRepository.findByIdWithItems(orderId)
-                .orElseThrow(() -> new NotFoundException(ErrorCode.LOI_CHUA_DAT));
-//                .orElseThrow(() -> new NotFoundException("Không tìm thấy đơn hàng"));
+        if (activeTableModel.isEnabled()) {
+            Optional<OrderAtTableResponse> active = activeTableModel.getOrder(orderId);
+            if (active.isPresent()) {
+                return active.get();
+            }
+        }
 
-        double totalAmount = order.getItems().stream()
-                .mapToDouble(item -> item.getPrice() * item.getQuantity())
+        return readInNewTransaction(status -> {
+            OrderAtTable order = orderAtTableRepository.findByIdWithItems(orderId)
+                    .orElseThrow(() -> new NotFoundException(ErrorCode.LOI_CHUA_DAT));
+//                    .orElseThrow(() -> new NotFoundException("Không tìm thấy đơn hàng"));
+
+            double totalAmount = order.getItems().stream()
+                    .mapToDouble(item -> item.getPrice() * item.getQuantity())
+                    .sum();
+
+            return buildOrderResponse(order, totalAmount);
+        });
+    }
+
+    @Override
+    public ActiveTableResponse getActiveTable(Long tableId) {
+        List<OrderAtTableResponse> orders;
+        if (activeTableModel.isEnabled()) {
+            if (!activeTableModel.isLoaded()) {
+                loadActiveTables();
+            }
+            orders = activeTableModel.getOpenOrders(tableId);
+        } else {
+            orders = readInNewTransaction(status ->
+                    orderAtTableRepository.findOpenByTableWithItems(tableId, ActiveTableModel.CLOSED_STATUSES).stream()
+                            .map(order -> buildOrderResponse(order, totalOf(order)))
+                            .toList());
+        }
+        String tableName;
+        if (orders.isEmpty()) {
+            tableName = tableRepository.findById(tableId)
+                    .map(TableEntity::getTableNumber)
+                    .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.TABLE_NOT_FOUND));
+        } else {
+            tableName = orders.get(0).getTableName();
+        }
+        double runningTotal = orders.stream()
+                .mapToDouble(order -> order.getTotalAmount() != null ? order.getTotalAmount() : 0.0)
                 .sum();
+        return ActiveTableResponse.builder()
+                .tableId(tableId)
+                .tableName(tableName)
+                .orders(orders)
+                .runningTotal(runningTotal)
+                .build();
+    }
+
+    /**
+     * Nạp toàn bộ khi khởi động và đối chiếu định kỳ để bù sự kiện bị lỡ (pub/sub Redis không đảm bảo giao)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.order-at-table.reconcile-interval:PT1M}",
+            fixedDelayString = "${app.order-at-table.reconcile-interval:PT1M}")
+    public void loadActiveTables() {
+        if (!activeTableModel.isEnabled()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        List<OrderAtTableResponse> orders = readInNewTransaction(status ->
+                orderAtTableRepository.findOpenWithTableAndItems(ActiveTableModel.CLOSED_STATUSES).stream()
+                        .map(order -> buildOrderResponse(order, totalOf(order)))
+                        .toList());
+        activeTableModel.replaceAll(orders, startedAt);
+        log.debug("Loaded {} open orders at table into memory", orders.size());
+    }
+
+    /**
+     * Thay đổi trên replica này: nạp lại ngay sau commit, không phụ thuộc luồng bếp
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderAtTableChangedEvent event) {
+        refreshActiveOrder(event.getOrderId());
+    }
+
+    /**
+     * Nhận trên mọi replica khi luồng bếp nhận một thay đổi đã commit qua Redis
+     */
+    @EventListener
+    public void onOrderSynced(OrderAtTableSyncEvent event) {
+        refreshActiveOrder(event.getOrderId());
+    }
+
+    private void refreshActiveOrder(Long orderId) {
+        if (!activeTableModel.isEnabled()) {
+            return;
+        }
+        try {
+            activeTableModel.refresh(orderId, () -> readInNewTransaction(status ->
+                    orderAtTableRepository.findWithTableAndItemsById(orderId)
+                            .map(order -> buildOrderResponse(order, totalOf(order)))));
+        } catch (Exception e) {
+            log.warn("Failed to refresh active order {}: {}", orderId, e.getMessage());
+        }
+    }
 
-        return buildOrderResponse(order, totalAmount);
+    // Transaction riêng: có thể được gọi sau commit khi transaction cũ vẫn còn gắn vào thread
+    private <T> T readInNewTransaction(TransactionCallback<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template.execute(action);
+    }
+
+    private double totalOf(OrderAtTable order) {
+        return order.getTotalPrice() != null ? order.getTotalPrice() :
+                order.getItems().stream()
+                        .mapToDouble(item -> item.getPrice() * item.getQuantity())
+                        .sum();
     }
 
     private OrderAtTableResponse buildOrderResponse(OrderAtTable order, double totalAmount) {
@@ -280,6 +427,30 @@ public class OrderAtTableServiceImpl implements OrderAtTableService {
         });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderAtTableResponse> getAllOrdersByCursor(EOrderStatus status, String cursor, int size, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageableUtil.keysetLimit(size);
+        List<OrderAtTable> orders = status != null
+                ? orderAtTableRepository.findByStatusBefore(status, after.createdAt(), after.id(), limit)
+                : orderAtTableRepository.findAllBefore(after.createdAt(), after.id(), limit);
+        Long total = null;
+        if (includeTotal) {
+            total = status != null ? orderAtTableRepository.countByStatus(status) : orderAtTableRepository.count();
+        }
+        return PageableUtil.toCursorPage(orders, size,
+                order -> new KeysetCursor(order.getCreatedAt(), order.getId()),
+                order -> {
+                    double totalAmount = order.getTotalPrice() != null ? order.getTotalPrice() :
+                            order.getItems().stream()
+                                    .mapToDouble(item -> item.getPrice() * item.getQuantity())
+                                    .sum();
+                    return buildOrderResponse(order, totalAmount);
+                },
+                total);
+    }
+
     @Override
     @Transactional
     public OrderAtTableResponse updateOrderStatus(Long orderId, EOrderStatus status) {
@@ -296,7 +467,9 @@ public class OrderAtTableServiceImpl implements OrderAtTableService {
                         .mapToDouble(item -> item.getPrice() * item.getQuantity())
                         .sum();
 
-        return buildOrderResponse(order, totalAmount);
+        OrderAtTableResponse response = buildOrderResponse(order, totalAmount);
+        publishChange(OrderAtTableChangedEvent.STATUS_CHANGED, response);
+        return response;
     }
 
     @Override
@@ -335,7 +508,9 @@ public class OrderAtTableServiceImpl implements OrderAtTableService {
         order.setStatus(EOrderStatus.COMPLETED);
         orderAtTableRepository.save(order);
 
-        return buildOrderResponse(order, totalAmount);
+        OrderAtTableResponse response = buildOrderResponse(order, totalAmount);
+        publishChange(OrderAtTableChangedEvent.PAID, response);
+        return response;
     }
 
     @Override
@@ -347,5 +522,16 @@ public class OrderAtTableServiceImpl implements OrderAtTableService {
                 .orElseThrow(() -> new NotFoundException(ErrorCode.LOI_CHUA_DAT));
 
         orderAtTableRepository.delete(order);
+        eventPublisher.publishEvent(new OrderAtTableChangedEvent(OrderAtTableChangedEvent.DELETED,
+                orderId, order.getTable() != null ? order.getTable().getId() : null, null));
+    }
+
+    @Override
+    public SseEmitter streamOrders(Long tableId, String lastEventId) {
+        return kitchenOrderStream.subscribe(tableId, lastEventId);
+    }
+
+    private void publishChange(String type, OrderAtTableResponse response) {
+        eventPublisher.publishEvent(new OrderAtTableChangedEvent(type, response.getOrderId(), response.getTableId(), response));
     }
 }
\ No newline at end of file
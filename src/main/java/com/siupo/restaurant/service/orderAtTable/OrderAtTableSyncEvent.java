@@ -0,0 +1,13 @@
+package com.siupo.restaurant.service.orderAtTable;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra trên mọi replica khi luồng bếp phân phối một thay đổi của đơn tại bàn (đã commit)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderAtTableSyncEvent {
+    private final Long orderId;
+}
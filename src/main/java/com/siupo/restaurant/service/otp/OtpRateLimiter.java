@@ -0,0 +1,77 @@
+package com.siupo.restaurant.service.otp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Giới hạn theo cửa sổ trượt xấp xỉ bằng hai bộ đếm Redis (cửa sổ hiện tại + cửa sổ trước, có trọng số):
+ * mỗi lần kiểm tra chỉ tốn một INCR và một GET, không có read-modify-write nên an toàn khi nhiều replica.
+ * Lần bị từ chối vẫn được đếm, nên client cứ thử tiếp thì vẫn bị khoá.
+ */
+@Slf4j
+@Component
+public class OtpRateLimiter {
+    private static final String KEY_PREFIX = "otp:rate:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public OtpRateLimiter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Ghi nhận một lần và trả về false nếu vượt limit trong window
+     */
+    public boolean tryAcquire(String scope, String id, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+        long now = System.currentTimeMillis();
+        long current = now / windowMillis;
+        String currentKey = key(scope, id, current);
+        try {
+            Long count = redisTemplate.opsForValue().increment(currentKey);
+            if (count != null && count == 1L) {
+                redisTemplate.expire(currentKey, window.multipliedBy(2));
+            }
+            String previous = redisTemplate.opsForValue().get(key(scope, id, current - 1));
+            return estimate(previous, count != null ? count : 0L, now, windowMillis) <= limit;
+        } catch (Exception e) {
+            // Redis lỗi thì không chặn đăng nhập/đăng ký; OTP vẫn có TTL
+            log.warn("OTP rate limiter unavailable for {}: {}", scope, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Chỉ kiểm tra, không ghi nhận; dùng để chặn sớm trước các bước tốn CPU
+     */
+    public boolean isBlocked(String scope, String id, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+        long now = System.currentTimeMillis();
+        long current = now / windowMillis;
+        try {
+            List<String> counts = redisTemplate.opsForValue().multiGet(
+                    List.of(key(scope, id, current), key(scope, id, current - 1)));
+            long currentCount = counts != null && counts.get(0) != null ? Long.parseLong(counts.get(0)) : 0L;
+            String previous = counts != null ? counts.get(1) : null;
+            // Lần tiếp theo sẽ là currentCount + 1
+            return estimate(previous, currentCount + 1, now, windowMillis) > limit;
+        } catch (Exception e) {
+            log.warn("OTP rate limiter unavailable for {}: {}", scope, e.getMessage());
+            return false;
+        }
+    }
+
+    private double estimate(String previous, long currentCount, long now, long windowMillis) {
+        long previousCount = previous != null ? Long.parseLong(previous) : 0L;
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        return previousCount * (1.0 - elapsed) + currentCount;
+    }
+
+    private String key(String scope, String id, long window) {
+        return KEY_PREFIX + scope + ":" + id + ":" + window;
+    }
+}
@@ -1,6 +1,7 @@
 package com.siupo.restaurant.service.otp;
 
 public interface OtpService {
+    void ensureSendAllowed(String email);
     void generateAndSendOtp(String email, String otpCode);
     void verifyOtp(String email, String otpCode);
 }
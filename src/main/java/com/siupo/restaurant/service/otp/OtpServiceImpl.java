@@ -6,44 +6,129 @@ import com.siupo.restaurant.exception.business.NotFoundException;
 import com.siupo.restaurant.model.OtpRedis;
 import com.siupo.restaurant.repository.OtpRedisRepository;
 import com.siupo.restaurant.service.mail.EmailService;
-import jakarta.mail.MessagingException;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Locale;
 
+/**
+ * OTP chỉ sống 5 phút và có giới hạn số lần thử, nên lưu HMAC-SHA256 (khoá bí mật phía server)
+ * thay cho BCrypt: đủ để Redis bị lộ cũng không dò ngược được mã, mà mỗi lần kiểm tra chỉ tốn vài micro giây.
+ * Giới hạn tần suất theo email và IP luôn được kiểm tra trước khi băm.
+ */
 @Service
-@RequiredArgsConstructor
 public class OtpServiceImpl implements OtpService {
+    private static final String SEND_EMAIL = "send:email";
+    private static final String SEND_IP = "send:ip";
+    private static final String VERIFY_EMAIL = "verify:email";
+    private static final String VERIFY_IP = "verify:ip";
+
     private final OtpRedisRepository otpRedisRepository;
     private final EmailService emailService;
-    private final PasswordEncoder passwordEncoder;
+    private final OtpRateLimiter rateLimiter;
+    private final HmacUtils hmac;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration window;
+    private final int sendPerEmail;
+    private final int sendPerIp;
+    private final int verifyPerEmail;
+    private final int verifyPerIp;
+
+    public OtpServiceImpl(OtpRedisRepository otpRedisRepository,
+                          EmailService emailService,
+                          OtpRateLimiter rateLimiter,
+                          @Value("${app.otp.hmac-secret:}") String hmacSecret,
+                          @Value("${app.otp.rate-limit.window:PT15M}") Duration window,
+                          @Value("${app.otp.rate-limit.send-per-email:5}") int sendPerEmail,
+                          @Value("${app.otp.rate-limit.send-per-ip:20}") int sendPerIp,
+                          @Value("${app.otp.rate-limit.verify-per-email:10}") int verifyPerEmail,
+                          @Value("${app.otp.rate-limit.verify-per-ip:50}") int verifyPerIp) {
+        this.otpRedisRepository = otpRedisRepository;
+        this.emailService = emailService;
+        this.rateLimiter = rateLimiter;
+        this.hmac = new HmacUtils(HmacAlgorithms.HMAC_SHA_256, resolveKey(hmacSecret));
+        this.window = window;
+        this.sendPerEmail = sendPerEmail;
+        this.sendPerIp = sendPerIp;
+        this.verifyPerEmail = verifyPerEmail;
+        this.verifyPerIp = verifyPerIp;
+    }
+
+    @Override
+    public void ensureSendAllowed(String email) {
+        String ip = clientIp();
+        if (rateLimiter.isBlocked(SEND_EMAIL, normalize(email), sendPerEmail, window)
+                || (ip != null && rateLimiter.isBlocked(SEND_IP, ip, sendPerIp, window))) {
+            throw new BadRequestException(ErrorCode.OTP_RATE_LIMITED);
+        }
+    }
 
     @Override
     public void generateAndSendOtp(String email, String subject) {
-        String otp = generateRandomOtp();
-        String hashedOtp = passwordEncoder.encode(otp);
-        OtpRedis entity = new OtpRedis(email, hashedOtp);
-        otpRedisRepository.save(entity);
-        try {
-            emailService.sendOTPToEmail(email, otp, subject);
-        } catch (MessagingException e) {
-            throw new BadRequestException(ErrorCode.EMAIL_SENDING_FAILED);
+        String ip = clientIp();
+        if (!rateLimiter.tryAcquire(SEND_EMAIL, normalize(email), sendPerEmail, window)
+                || (ip != null && !rateLimiter.tryAcquire(SEND_IP, ip, sendPerIp, window))) {
+            throw new BadRequestException(ErrorCode.OTP_RATE_LIMITED);
         }
+        String otp = generateRandomOtp();
+        otpRedisRepository.save(new OtpRedis(email, digest(email, otp)));
+        // Chỉ ghi vào outbox, MailDeliveryWorker gửi bất đồng bộ
+        emailService.sendOTPToEmail(email, otp, subject);
     }
 
     @Override
     public void verifyOtp(String email, String inputOtp) {
+        String ip = clientIp();
+        if (!rateLimiter.tryAcquire(VERIFY_EMAIL, normalize(email), verifyPerEmail, window)
+                || (ip != null && !rateLimiter.tryAcquire(VERIFY_IP, ip, verifyPerIp, window))) {
+            throw new BadRequestException(ErrorCode.OTP_ATTEMPTS_EXCEEDED);
+        }
         OtpRedis entity = otpRedisRepository.findById(email)
                 .orElseThrow(() -> new NotFoundException(ErrorCode.OTP_NOT_FOUND_OR_EXPIRED));
-        if (!passwordEncoder.matches(inputOtp, entity.getOtp())) {
+        if (inputOtp == null || !MessageDigest.isEqual(
+                digest(email, inputOtp.trim()).getBytes(StandardCharsets.US_ASCII),
+                entity.getOtp().getBytes(StandardCharsets.US_ASCII))) {
             throw new BadRequestException(ErrorCode.OTP_INVALID);
         }
         otpRedisRepository.delete(entity);
     }
 
+    // Gắn email vào dữ liệu băm để một digest không dùng lại được cho email khác
+    private String digest(String email, String otp) {
+        return hmac.hmacHex(normalize(email) + ":" + otp);
+    }
+
     private String generateRandomOtp() {
-        return String.valueOf(new SecureRandom().nextInt(900000) + 100000);
+        return String.valueOf(random.nextInt(900000) + 100000);
+    }
+
+    private String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Sau nginx, server.forward-headers-strategy=native để getRemoteAddr() trả về IP client từ X-Forwarded-For
+    private String clientIp() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            return request.getRemoteAddr();
+        }
+        return null;
+    }
+
+    private static byte[] resolveKey(String secret) {
+        // Khoá phải cố định và dùng chung giữa các replica, nếu không OTP đã phát sẽ không xác thực được
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.otp.hmac-secret (OTP_HMAC_SECRET) must be set");
+        }
+        return secret.getBytes(StandardCharsets.UTF_8);
     }
 }
@@ -4,4 +4,6 @@ import com.siupo.restaurant.dto.response.ShopDataResponse;
 
 public interface PageService {
     ShopDataResponse getInitialDataShop();
+    ShopDataSnapshot getShopDataSnapshot();
+    void invalidateShopData();
 }
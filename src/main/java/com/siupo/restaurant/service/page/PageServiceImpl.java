@@ -1,29 +1,91 @@
 package com.siupo.restaurant.service.page;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siupo.restaurant.dto.response.*;
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
 import com.siupo.restaurant.mapper.ProductMapper;
 import com.siupo.restaurant.model.Product;
 import com.siupo.restaurant.repository.ProductRepository;
 import com.siupo.restaurant.service.category.CategoryService;
 import com.siupo.restaurant.service.combo.ComboService;
 import com.siupo.restaurant.service.tag.TagService;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class PageServiceImpl implements PageService {
     private final ComboService comboService;
     private final CategoryService categoryService;
     private final TagService tagService;
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    // Transaction của từng section khi chạy song song: timeout (làm tròn lên giây) bằng sectionTimeout
+    private final TransactionTemplate sectionTransaction;
+    private final ExecutorService sectionExecutor;
+    private final Duration snapshotTtl;
+    private final boolean fanOutEnabled;
+    private final Duration sectionTimeout;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<ShopDataSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<ShopDataResponse> lastCompleteData = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+
+    public PageServiceImpl(ComboService comboService,
+                           CategoryService categoryService,
+                           TagService tagService,
+                           ProductRepository productRepository,
+                           ProductMapper productMapper,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Qualifier("virtualThreadExecutor") ExecutorService sectionExecutor,
+                           @Value("${app.page.shop-snapshot-ttl:PT5M}") Duration snapshotTtl,
+                           @Value("${app.page.shop-fan-out.enabled:true}") boolean fanOutEnabled,
+                           @Value("${app.page.shop-fan-out.section-timeout:PT2S}") Duration sectionTimeout) {
+        this.comboService = comboService;
+        this.categoryService = categoryService;
+        this.tagService = tagService;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.sectionTransaction = new TransactionTemplate(transactionManager);
+        this.sectionTransaction.setReadOnly(true);
+        this.sectionTransaction.setTimeout((int) Math.max(1, (sectionTimeout.toMillis() + 999) / 1000));
+        this.sectionExecutor = sectionExecutor;
+        this.snapshotTtl = snapshotTtl;
+        this.fanOutEnabled = fanOutEnabled;
+        this.sectionTimeout = sectionTimeout;
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -47,6 +109,141 @@ public class PageServiceImpl implements PageService {
                 .build();
     }
 
+    /**
+     * Trả về snapshot đã serialize sẵn; chỉ dựng lại khi snapshot bị invalidate hoặc quá TTL.
+     * Không mở transaction khi snapshot còn hợp lệ.
+     */
+    @Override
+    public ShopDataSnapshot getShopDataSnapshot() {
+        ShopDataSnapshot current = snapshot.get();
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (rebuildLock) {
+            current = snapshot.get();
+            if (isFresh(current)) {
+                return current;
+            }
+            long buildVersion = version.get();
+            AtomicBoolean partial = new AtomicBoolean(false);
+            ShopDataResponse data = fanOutEnabled
+                    ? loadSectionsInParallel(partial)
+                    : readOnlyTransaction.execute(status -> getInitialDataShop());
+            ShopDataSnapshot rebuilt = serialize(buildVersion, data);
+            // Không cache kết quả thiếu section, hoặc khi có thay đổi trong lúc đang dựng
+            if (!partial.get()) {
+                lastCompleteData.set(data);
+                if (version.get() == buildVersion) {
+                    snapshot.set(rebuilt);
+                }
+            }
+            return rebuilt;
+        }
+    }
+
+    @Override
+    public void invalidateShopData() {
+        version.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShopDataChanged(ShopDataChangedEvent event) {
+        log.debug("Shop data snapshot invalidated by {}", event.getSource());
+        invalidateShopData();
+    }
+
+    /**
+     * Mỗi section chạy trên một virtual thread với transaction read-only riêng.
+     * Section nào lỗi hoặc quá timeout sẽ dùng dữ liệu của lần dựng đầy đủ gần nhất (hoặc rỗng).
+     */
+    private ShopDataResponse loadSectionsInParallel(AtomicBoolean partial) {
+        ShopDataResponse previous = lastCompleteData.get();
+        CompletableFuture<List<ComboResponse>> combos = loadSection("combos",
+                comboService::getAvailableCombos,
+                previous != null ? previous.getCombos() : null, partial);
+        CompletableFuture<List<CategoryResponse>> categories = loadSection("categories",
+                categoryService::getAllCategories,
+                previous != null ? previous.getCategories() : null, partial);
+        CompletableFuture<List<TagResponse>> tags = loadSection("tags",
+                tagService::getAllTags,
+                previous != null ? previous.getTags() : null, partial);
+        CompletableFuture<List<ProductResponse>> latestProducts = loadSection("latestProducts",
+                () -> getLatestProducts(4),
+                previous != null ? previous.getLatestProducts() : null, partial);
+        CompletableFuture<List<ProductResponse>> initialProducts = loadSection("products",
+                () -> getInitialProducts(15),
+                previous != null ? previous.getProducts() : null, partial);
+        CompletableFuture.allOf(combos, categories, tags, latestProducts, initialProducts).join();
+        return ShopDataResponse.builder()
+                .combos(combos.join())
+                .categories(categories.join())
+                .products(initialProducts.join())
+                .tags(tags.join())
+                .latestProducts(latestProducts.join())
+                .build();
+    }
+
+    /**
+     * Hết sectionTimeout thì dùng dữ liệu dự phòng và huỷ task (interrupt virtual thread đang chờ socket JDBC),
+     * kết hợp query timeout của transaction để connection được trả về pool thay vì bị giữ tới khi query xong.
+     */
+    private <T> CompletableFuture<List<T>> loadSection(String name,
+                                                       Supplier<List<T>> loader,
+                                                       List<T> fallback,
+                                                       AtomicBoolean partial) {
+        CompletableFuture<List<T>> section = new CompletableFuture<>();
+        Future<?> task = sectionExecutor.submit(() -> {
+            try {
+                section.complete(sectionTransaction.execute(status -> loader.get()));
+            } catch (Throwable ex) {
+                section.completeExceptionally(ex);
+            }
+        });
+        return section
+                .orTimeout(sectionTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    if (ex instanceof TimeoutException) {
+                        task.cancel(true);
+                        log.warn("Shop section {} timed out after {}", name, sectionTimeout);
+                    } else {
+                        log.warn("Failed to load shop section {}: {}", name, ex.getMessage());
+                    }
+                    return null;
+                })
+                .thenApply(result -> {
+                    if (result != null) {
+                        return result;
+                    }
+                    log.warn("Shop section {} fell back to {} data", name, fallback != null ? "previous" : "empty");
+                    partial.set(true);
+                    return fallback != null ? fallback : List.<T>of();
+                });
+    }
+
+    private boolean isFresh(ShopDataSnapshot current) {
+        return current != null
+                && current.getVersion() == version.get()
+                && current.getBuiltAt().plus(snapshotTtl).isAfter(Instant.now());
+    }
+
+    private ShopDataSnapshot serialize(long buildVersion, ShopDataResponse data) {
+        ApiResponse<ShopDataResponse> response = ApiResponse.<ShopDataResponse>builder()
+                .success(true)
+                .code("200")
+                .message("Shop initial data retrieved successfully")
+                .data(data)
+                .build();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            String etag = "\"" + buildVersion + "-" + DigestUtils.md5DigestAsHex(body) + "\"";
+            return new ShopDataSnapshot(buildVersion, etag, body, Instant.now());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize shop data snapshot: {}", e.getMessage(), e);
+            throw new BadRequestException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+
     private List<ProductResponse> getLatestProducts(int limit) {
         Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "id"));
         List<Product> products = productRepository.findAll(pageable).getContent();
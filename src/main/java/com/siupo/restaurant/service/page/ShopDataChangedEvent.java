@@ -0,0 +1,13 @@
+package com.siupo.restaurant.service.page;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi product, combo, category, tag (hoặc rating) thay đổi để làm mới snapshot trang shop
+ */
+@Getter
+@AllArgsConstructor
+public class ShopDataChangedEvent {
+    private final String source;
+}
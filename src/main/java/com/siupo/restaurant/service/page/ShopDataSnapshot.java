@@ -0,0 +1,18 @@
+package com.siupo.restaurant.service.page;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Bản chụp dữ liệu trang shop đã được serialize sẵn thành JSON
+ */
+@Getter
+@AllArgsConstructor
+public class ShopDataSnapshot {
+    private final long version;
+    private final String etag;
+    private final byte[] body;
+    private final Instant builtAt;
+}
@@ -0,0 +1,82 @@
+package com.siupo.restaurant.service.payment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siupo.restaurant.config.MomoConfig;
+import com.siupo.restaurant.dto.request.MomoPaymentRequest;
+import com.siupo.restaurant.dto.response.MomoPaymentResponse;
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client dùng chung cho MoMo gateway: giữ connection pool và TLS session giữa các request,
+ * giới hạn số request đồng thời và ghi nhận latency của từng lời gọi.
+ */
+@Slf4j
+@Component
+public class MomoGatewayClient {
+    private final MomoConfig momoConfig;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient httpClient;
+    private final Semaphore permits;
+
+    public MomoGatewayClient(MomoConfig momoConfig, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.momoConfig = momoConfig;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(momoConfig.getConnectTimeout())
+                .build();
+        this.permits = new Semaphore(momoConfig.getMaxConcurrentRequests());
+    }
+
+    public MomoPaymentResponse createPayment(MomoPaymentRequest momoRequest) throws IOException, InterruptedException {
+        if (!permits.tryAcquire(momoConfig.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("MoMo gateway concurrency limit reached ({} in flight)", momoConfig.getMaxConcurrentRequests());
+            record("create", "rejected", 0);
+            throw new BadRequestException(ErrorCode.SERVICE_UNAVAILABLE);
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            String requestBody = objectMapper.writeValueAsString(momoRequest);
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(momoConfig.getEndpoint()))
+                    .timeout(momoConfig.getReadTimeout())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            log.debug("MoMo Response: {}", response.body());
+            MomoPaymentResponse momoResponse = objectMapper.readValue(response.body(), MomoPaymentResponse.class);
+            outcome = Objects.equals(momoResponse.getResultCode(), 0) ? "success" : "rejected_by_gateway";
+            return momoResponse;
+        } finally {
+            permits.release();
+            record("create", outcome, System.nanoTime() - start);
+        }
+    }
+
+    private void record(String operation, String outcome, long elapsedNanos) {
+        Timer.builder("momo.gateway.request")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,6 +1,5 @@
 package com.siupo.restaurant.service.payment;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siupo.restaurant.config.MomoConfig;
 import com.siupo.restaurant.dto.request.MomoIpnRequest;
 import com.siupo.restaurant.dto.request.MomoPaymentRequest;
@@ -13,6 +12,7 @@ import com.siupo.restaurant.model.MomoPayment;
 import com.siupo.restaurant.model.Order;
 import com.siupo.restaurant.repository.OrderRepository;
 import com.siupo.restaurant.repository.PaymentRepository;
+import com.siupo.restaurant.service.voucher.VoucherService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.HmacAlgorithms;
@@ -20,10 +20,6 @@ import org.apache.commons.codec.digest.HmacUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -35,7 +31,8 @@ public class MomoPaymentServiceImpl implements MomoPaymentService {
     private final MomoConfig momoConfig;
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
-    private final ObjectMapper objectMapper;
+    private final MomoGatewayClient momoGatewayClient;
+    private final VoucherService voucherService;
 
     @Override
     public MomoPaymentResponse createPayment(Order order) {
@@ -102,22 +99,8 @@ public class MomoPaymentServiceImpl implements MomoPaymentService {
                     .signature(signature)
                     .build();
 
-            String requestBody = objectMapper.writeValueAsString(momoRequest);
-            log.debug("MoMo Request Body: {}", requestBody);
-
-            // Gửi request đến MoMo
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(momoConfig.getEndpoint()))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            log.debug("MoMo Response: {}", response.body());
-
-            // Parse response
-            MomoPaymentResponse momoResponse = objectMapper.readValue(response.body(), MomoPaymentResponse.class);
+            // Gửi request đến MoMo qua client dùng chung
+            MomoPaymentResponse momoResponse = momoGatewayClient.createPayment(momoRequest);
 
             if (momoResponse.getResultCode() != 0) {
                 log.error("MoMo payment creation failed: {} - {}", momoResponse.getResultCode(), momoResponse.getMessage());
@@ -203,6 +186,7 @@ public class MomoPaymentServiceImpl implements MomoPaymentService {
 
                 order.setStatus(EOrderStatus.CANCELED);
                 orderRepository.save(order);
+                voucherService.releaseVoucherUsage(order);
 
                 log.warn("MoMo payment failed for Order #{}: {}", orderId, ipnRequest.getMessage());
                 return false;
@@ -0,0 +1,65 @@
+package com.siupo.restaurant.service.payment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siupo.restaurant.dto.request.PreOrderPaymentRequest;
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Lưu tạm các pre-order đang chờ MoMo callback trong Redis (có TTL, dùng chung giữa các replica).
+ * claim() dùng GETDEL nên mỗi orderId chỉ được xử lý đúng một lần dù IPN bị gửi lại.
+ */
+@Slf4j
+@Component
+public class PendingPreOrderStore {
+    private static final String KEY_PREFIX = "pending_preorder:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public PendingPreOrderStore(StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${app.payment.pending-preorder-ttl:PT30M}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    public void save(String orderId, PreOrderPaymentRequest request) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + orderId, objectMapper.writeValueAsString(request), ttl);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize pending pre-order {}: {}", orderId, e.getMessage());
+            throw new BadRequestException(ErrorCode.INTERNAL_ERROR);
+        }
+    }
+
+    /**
+     * Lấy và xoá nguyên tử; trả về empty nếu đã bị node khác claim hoặc đã hết hạn
+     */
+    public Optional<PreOrderPaymentRequest> claim(String orderId) {
+        String json = redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + orderId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json, PreOrderPaymentRequest.class));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize pending pre-order {}: {}", orderId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void remove(String orderId) {
+        redisTemplate.delete(KEY_PREFIX + orderId);
+    }
+}
@@ -10,6 +10,9 @@ import com.siupo.restaurant.model.*;
 import com.siupo.restaurant.repository.OrderItemRepository;
 import com.siupo.restaurant.repository.PlaceTableForCustomerRepository;
 import com.siupo.restaurant.repository.ProductRepository;
+import com.siupo.restaurant.service.mail.EmailService;
+import com.siupo.restaurant.service.table.TableAvailabilityEngine;
+import com.siupo.restaurant.service.table.TableSlotClaimEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
@@ -32,10 +35,11 @@ public class PlaceTableForCustomerServiceImpl implements PlaceTableForCustomerSe
     private final ProductRepository productRepository;
     private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
+    private final TableAvailabilityEngine tableAvailabilityEngine;
+    private final TableSlotClaimEngine tableSlotClaimEngine;
+    private final EmailService emailService;
     // private final NotificationService notificationService; // Uncomment nếu có service gửi notification
 
-    // Số bàn tối đa của nhà hàng (có thể config trong properties)
-    private static final int MAX_TABLES = 20;
     private User getAuthenticatedUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
@@ -66,6 +70,11 @@ public class PlaceTableForCustomerServiceImpl implements PlaceTableForCustomerSe
         if (request.getStartedAt().isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("Thời gian đặt bàn phải là thời gian tương lai");
         }
+        int guests = request.getMemberInt() != null ? request.getMemberInt() : 1;
+        tableAvailabilityEngine.checkBookable(guests, request.getStartedAt());
+        if (!tableAvailabilityEngine.hasAvailableTable(guests, request.getStartedAt())) {
+            throw new BadRequestException(ErrorCode.NO_TABLE_AVAILABLE);
+        }
 
         User authenticatedUser = getAuthenticatedUser();
 
@@ -82,6 +91,8 @@ public class PlaceTableForCustomerServiceImpl implements PlaceTableForCustomerSe
                 .build();
 
         PlaceTableForCustomer savedPlaceTable = placeTableRepository.save(placeTable);
+        // Giữ tạm một bàn cho booking PENDING; hết bàn thì rollback cả booking
+        tableSlotClaimEngine.hold(TableAvailabilityEngine.customerKey(savedPlaceTable.getId()), guests, request.getStartedAt());
 
         // Nếu có chọn món trước
         if (request.getPreOrderItems() != null && !request.getPreOrderItems().isEmpty()) {
@@ -142,11 +153,11 @@ public class PlaceTableForCustomerServiceImpl implements PlaceTableForCustomerSe
                 .orElseThrow(() -> new BadRequestException(ErrorCode.LOI_CHUA_DAT));
 //                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn đặt bàn với ID: " + placeTableId));
 
-        // TODO: Implement notification service
-        // notificationService.sendBookingConfirmation(placeTable);
+        String customerName = placeTable.getUser() != null ? placeTable.getUser().getFullName() : null;
+        emailService.sendBookingConfirmation(placeTable.getEmail(), customerName, placeTableId,
+                placeTable.getStartedAt(), placeTable.getMember());
 
-        log.info("Gửi thông báo xác nhận đặt bàn cho user: {} - Đơn: {}",
-                placeTable.getUser().getId(), placeTableId);
+        log.info("Gửi thông báo xác nhận đặt bàn tới: {} - Đơn: {}", placeTable.getEmail(), placeTableId);
     }
 
     private void sendStatusUpdateNotification(PlaceTableForCustomer placeTable) {
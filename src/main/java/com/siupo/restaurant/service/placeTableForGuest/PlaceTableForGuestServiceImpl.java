@@ -7,6 +7,8 @@ import com.siupo.restaurant.exception.base.ErrorCode;
 import com.siupo.restaurant.exception.business.BadRequestException;
 import com.siupo.restaurant.model.PlaceTableForGuest;
 import com.siupo.restaurant.repository.PlaceTableForGuestRepository;
+import com.siupo.restaurant.service.table.TableAvailabilityEngine;
+import com.siupo.restaurant.service.table.TableSlotClaimEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,8 @@ import java.time.LocalDateTime;
 public class PlaceTableForGuestServiceImpl implements PlaceTableForGuestService {
 
     private final PlaceTableForGuestRepository placeTableForGuestRepository;
+    private final TableAvailabilityEngine tableAvailabilityEngine;
+    private final TableSlotClaimEngine tableSlotClaimEngine;
 
     @Override
     @Transactional
@@ -33,6 +37,12 @@ public class PlaceTableForGuestServiceImpl implements PlaceTableForGuestService
         // Validate member count
         validateMemberCount(request.getMemberInt());
 
+        // Loại nhanh khi chỉ mục cho thấy đã hết bàn; claim thật nằm ở hold()
+        tableAvailabilityEngine.checkBookable(request.getMemberInt(), request.getStartedAt());
+        if (!tableAvailabilityEngine.hasAvailableTable(request.getMemberInt(), request.getStartedAt())) {
+            throw new BadRequestException(ErrorCode.NO_TABLE_AVAILABLE);
+        }
+
         // Create entity
         PlaceTableForGuest placeTable = PlaceTableForGuest.builder()
                 .fullname(request.getFullname().trim())
@@ -44,27 +54,31 @@ public class PlaceTableForGuestServiceImpl implements PlaceTableForGuestService
                 .status(EPlaceTableStatus.PENDING)
                 .build();
 
+        PlaceTableForGuest savedTable;
         try {
-            PlaceTableForGuest savedTable = placeTableForGuestRepository.save(placeTable);
-            log.info("Place table request created successfully with ID: {}", savedTable.getId());
-
-            return PlaceTableForGuestResponse.builder()
-                    .id(savedTable.getId())
-                    .fullname(savedTable.getFullname())
-                    .phoneNumber(savedTable.getPhoneNumber())
-                    .email(savedTable.getEmail())
-                    .memberInt(savedTable.getMemberInt())
-                    .status(savedTable.getStatus())
-                    .startedAt(savedTable.getStartedAt())
-                    .note(savedTable.getNote())
-                    .createdAt(savedTable.getCreatedAt())
-                    .message("Yêu cầu đặt bàn đã được gửi, quản lý sẽ liên hệ lại để xác nhận")
-                    .build();
+            savedTable = placeTableForGuestRepository.save(placeTable);
         } catch (Exception e) {
             log.error("Error saving place table request: {}", e.getMessage(), e);
             throw new BadRequestException(ErrorCode.LOI_CHUA_DAT);
 //            throw new BadRequestException("Không thể gửi yêu cầu, vui lòng thử lại sau");
         }
+        // Giữ tạm một bàn cho booking PENDING; hết bàn thì rollback cả booking
+        tableSlotClaimEngine.hold(TableAvailabilityEngine.guestKey(savedTable.getId()),
+                savedTable.getMemberInt(), savedTable.getStartedAt());
+        log.info("Place table request created successfully with ID: {}", savedTable.getId());
+
+        return PlaceTableForGuestResponse.builder()
+                .id(savedTable.getId())
+                .fullname(savedTable.getFullname())
+                .phoneNumber(savedTable.getPhoneNumber())
+                .email(savedTable.getEmail())
+                .memberInt(savedTable.getMemberInt())
+                .status(savedTable.getStatus())
+                .startedAt(savedTable.getStartedAt())
+                .note(savedTable.getNote())
+                .createdAt(savedTable.getCreatedAt())
+                .message("Yêu cầu đặt bàn đã được gửi, quản lý sẽ liên hệ lại để xác nhận")
+                .build();
     }
 
     private void validateStartedTime(LocalDateTime startedAt) {
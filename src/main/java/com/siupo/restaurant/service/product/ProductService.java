@@ -1,6 +1,7 @@
 package com.siupo.restaurant.service.product;
 
 import com.siupo.restaurant.dto.request.ProductRequest;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.ProductResponse;
 import com.siupo.restaurant.model.Product;
 import com.siupo.restaurant.model.User;
@@ -11,6 +12,7 @@ import java.util.List;
 public interface ProductService {
     Product getProductEntityById(Long id);
     Page<ProductResponse> getAllProducts(User user, int page, int size, String sortBy);
+    CursorPageResponse<ProductResponse> getAllProductsByCursor(User user, String cursor, int size, boolean includeTotal);
     ProductResponse getProductById(User user, Long id);
     Page<ProductResponse> searchAndFilterProducts(User user, String name, List<Long> categoryIds,List<Long> tagIds, Double minPrice, Double maxPrice, int page, int size, String sortBy);
     ProductResponse createProduct(ProductRequest productRequest);
@@ -1,6 +1,7 @@
 package com.siupo.restaurant.service.product;
 
 import com.siupo.restaurant.dto.request.ProductRequest;
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.ProductResponse;
 import com.siupo.restaurant.enums.EProductStatus;
 import com.siupo.restaurant.exception.base.ErrorCode;
@@ -10,14 +11,18 @@ import com.siupo.restaurant.model.*;
 import com.siupo.restaurant.repository.CategoryRepository;
 import com.siupo.restaurant.repository.ProductTagRepository;
 import com.siupo.restaurant.repository.ProductRepository;
+import com.siupo.restaurant.service.page.ShopDataChangedEvent;
+import com.siupo.restaurant.service.wishlist.WishlistService;
+import com.siupo.restaurant.util.KeysetCursor;
 import com.siupo.restaurant.util.PageableUtil;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +36,8 @@ public class ProductServiceImpl implements ProductService {
     private final CategoryRepository categoryRepository;
     private final ProductTagRepository productTagRepository;
     private final ProductMapper productMapper;
+    private final WishlistService wishlistService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Product getProductEntityById(Long id) {
@@ -39,19 +46,39 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(User user, int page, int size, String sortBy) {
         Pageable pageable = PageableUtil.create(page, size, sortBy);
         Page<Product> products = productRepository.findAll(pageable);
-        return products.map(product -> productMapper.toResponse(product, user));
+        Set<Long> wishlistProductIds = user != null ? wishlistService.getWishlistProductIds(user) : Set.of();
+        return products.map(product -> productMapper.toResponse(product, wishlistProductIds));
     }
 
+    /**
+     * Keyset theo (createdAt, id) giảm dần, tức sản phẩm mới nhất trước. Chỉ áp dụng cho thứ tự mặc định này:
+     * các kiểu sort theo price/name của getAllProducts/search cần cursor theo chính cột đó nên vẫn dùng offset.
+     */
     @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductResponse> getAllProductsByCursor(User user, String cursor, int size, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Product> products = productRepository.findAllBefore(after.createdAt(), after.id(), PageableUtil.keysetLimit(size));
+        Set<Long> wishlistProductIds = user != null ? wishlistService.getWishlistProductIds(user) : Set.of();
+        return PageableUtil.toCursorPage(products, size,
+                product -> new KeysetCursor(product.getCreatedAt(), product.getId()),
+                product -> productMapper.toResponse(product, wishlistProductIds),
+                includeTotal ? productRepository.count() : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ProductResponse getProductById(User user, Long id) {
         Product product = getProductEntityById(id);
         return productMapper.toResponse(product,user);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ProductResponse> searchAndFilterProducts(
             User user,
             String name,
@@ -98,15 +125,15 @@ public class ProductServiceImpl implements ProductService {
                 ? productRepository.findAll(pageable)
                 : productRepository.findAll(spec, pageable);
 
-        return productPage.map(product -> {
-            if (user instanceof Customer customer) {
-                return productMapper.toResponse(product, customer);
-            }
-            return productMapper.toResponse(product);
-        });
+        if (user instanceof Customer customer) {
+            Set<Long> wishlistProductIds = wishlistService.getWishlistProductIds(customer);
+            return productPage.map(product -> productMapper.toResponse(product, wishlistProductIds));
+        }
+        return productPage.map(productMapper::toResponse);
     }
 
     @Override
+    @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public ProductResponse updateProductStatus(Long id) {
         Product product = getProductEntityById(id);
@@ -117,7 +144,9 @@ public class ProductServiceImpl implements ProductService {
         } else {
             throw new BadRequestException(ErrorCode.CANNOT_CHANGE_STATUS_OF_PRODUCT);
         }
-        return productMapper.toResponse(productRepository.save(product));
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("product"));
+        return productMapper.toResponse(savedProduct);
     }
 
     @Override
@@ -136,11 +165,13 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteProductById(Long id) {
         Product product = getProductEntityById(id);
         product.setStatus(EProductStatus.DELETED);
         productRepository.save(product);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("product"));
     }
 
     private ProductResponse saveAndReturnResponse(Product product, ProductRequest request) {
@@ -154,7 +185,9 @@ public class ProductServiceImpl implements ProductService {
         }
         handleImages(product, request.getImageUrls());
         handleTags(product, request.getTags());
-        return productMapper.toResponse(productRepository.save(product));
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("product"));
+        return productMapper.toResponse(savedProduct);
     }
 
     private void handleTags(Product product, List<String> tagNames) {
@@ -12,7 +12,9 @@ import com.siupo.restaurant.repository.OrderItemRepository;
 import com.siupo.restaurant.repository.OrderRepository;
 import com.siupo.restaurant.repository.ProductRepository;
 import com.siupo.restaurant.repository.ReviewRepository;
+import com.siupo.restaurant.service.page.ShopDataChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +32,7 @@ public class ReviewServiceImpl implements ReviewService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final ReviewMapper reviewMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -74,6 +77,11 @@ public class ReviewServiceImpl implements ReviewService {
         Review savedReview = reviewRepository.save(review);
         orderItem.setReviewed(true);
         orderItemRepository.save(orderItem);
+        if (orderItem.getProduct() != null) {
+            productRepository.addRating(orderItem.getProduct().getId(),
+                    request.getRating().doubleValue(), request.getRating());
+            eventPublisher.publishEvent(new ShopDataChangedEvent("review"));
+        }
         return reviewMapper.toResponse(savedReview);
     }
 
@@ -133,4 +141,12 @@ public class ReviewServiceImpl implements ReviewService {
                 .map(reviewMapper::toResponse)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    @Transactional
+    public void rebuildRatingSummaries() {
+        int updated = productRepository.rebuildAllRatingSummaries();
+        eventPublisher.publishEvent(new ShopDataChangedEvent("review"));
+        log.info("Rebuilt rating summaries for {} products", updated);
+    }
 }
@@ -0,0 +1,15 @@
+package com.siupo.restaurant.service.table;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Phát ra khi booking của một ngày đổi trạng thái/bàn (day != null) hoặc danh sách bàn thay đổi (day == null)
+ */
+@Getter
+@AllArgsConstructor
+public class TableAvailabilityChangedEvent {
+    private final LocalDate day;
+}
@@ -0,0 +1,429 @@
+package com.siupo.restaurant.service.table;
+
+import com.siupo.restaurant.enums.EPlaceTableStatus;
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.model.PlaceTableForCustomer;
+import com.siupo.restaurant.model.PlaceTableForGuest;
+import com.siupo.restaurant.model.TableEntity;
+import com.siupo.restaurant.model.TableSlotClaim;
+import com.siupo.restaurant.repository.PlaceTableForCustomerRepository;
+import com.siupo.restaurant.repository.PlaceTableForGuestRepository;
+import com.siupo.restaurant.repository.TableRepository;
+import com.siupo.restaurant.repository.TableSlotClaimRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chỉ mục chiếm bàn trong bộ nhớ theo từng ngày, dùng cùng mô hình ô (bàn, khung slotStep) với table_slot_claims:
+ * một booking chiếm các ô phủ [start, start + slotDuration), gồm cả giữ chỗ tạm của booking PENDING (ô hết hạn
+ * coi như trống). Nhờ vậy bàn được báo trống ở đây cũng là bàn TableSlotClaimEngine claim được.
+ * Database vẫn là nguồn dữ liệu gốc: sau mỗi thay đổi, ngày tương ứng được nạp lại từ DB với version tăng dần;
+ * khi bật redis-sync, version được cấp bằng Redis INCR và broadcast để các replica khác nạp lại cùng ngày.
+ * Mỗi ngày có lock riêng nên các ngày khác nhau không chặn nhau. Đường đọc không tạo ngày mới (ngày chưa có
+ * trong chỉ mục là ngày trống), chỉ nhận ngày trong khoảng đặt trước cho phép, và ngày đã qua bị dọn mỗi đêm.
+ */
+@Slf4j
+@Component
+public class TableAvailabilityEngine {
+    public static final String CHANGE_CHANNEL = "table-availability:changed";
+    // Giờ bắt đầu hợp lệ: [OPENING_TIME, CLOSING_TIME)
+    public static final LocalTime OPENING_TIME = LocalTime.of(8, 0);
+    public static final LocalTime CLOSING_TIME = LocalTime.of(22, 0);
+    private static final String VERSION_KEY_PREFIX = "table-availability:version:";
+    private static final String TABLES_SCOPE = "tables";
+    // Ngày chưa có booking; chỉ dùng để đọc, không bao giờ được đưa vào days
+    private static final DayOccupancy EMPTY_DAY = new DayOccupancy();
+
+    private final TableRepository tableRepository;
+    private final PlaceTableForCustomerRepository customerRepository;
+    private final PlaceTableForGuestRepository guestRepository;
+    private final TableSlotClaimRepository claimRepository;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final Duration slotDuration;
+    private final Duration slotStep;
+    private final int horizonDays;
+    private final boolean redisSync;
+
+    // Sắp xếp theo số ghế tăng dần để chọn bàn vừa nhất
+    private volatile List<TableSlot> tables = List.of();
+    private volatile long tablesVersion;
+    private final Map<LocalDate, DayOccupancy> days = new ConcurrentHashMap<>();
+    private final AtomicLong localVersion = new AtomicLong();
+
+    public TableAvailabilityEngine(TableRepository tableRepository,
+                                   PlaceTableForCustomerRepository customerRepository,
+                                   PlaceTableForGuestRepository guestRepository,
+                                   TableSlotClaimRepository claimRepository,
+                                   ObjectProvider<StringRedisTemplate> redisTemplate,
+                                   @Value("${app.booking.slot-duration:PT2H}") Duration slotDuration,
+                                   @Value("${app.booking.slot-step:PT30M}") Duration slotStep,
+                                   @Value("${app.booking.horizon-days:60}") int horizonDays,
+                                   @Value("${app.booking.availability.redis-sync:false}") boolean redisSync) {
+        this.tableRepository = tableRepository;
+        this.customerRepository = customerRepository;
+        this.guestRepository = guestRepository;
+        this.claimRepository = claimRepository;
+        this.redisTemplate = redisTemplate;
+        this.slotDuration = slotDuration;
+        this.slotStep = slotStep;
+        this.horizonDays = horizonDays;
+        this.redisSync = redisSync;
+    }
+
+    public record TableSlot(Long id, String tableNumber, int seat) {
+    }
+
+    // Ô bị chiếm; expiresAt == null là cố định (CONFIRMED)
+    private record Cell(String bookingKey, Long tableId, LocalDateTime slot, LocalDateTime expiresAt) {
+        boolean isActive(LocalDateTime now) {
+            return expiresAt == null || !expiresAt.isBefore(now);
+        }
+    }
+
+    public static String customerKey(Long bookingId) {
+        return "C:" + bookingId;
+    }
+
+    public static String guestKey(Long bookingId) {
+        return "G:" + bookingId;
+    }
+
+    // ============= QUERIES =============
+
+    /**
+     * Số khách >= 1 và ngày nằm trong [hôm nay, hôm nay + horizonDays]
+     */
+    public void checkBookable(int guests, LocalDate date) {
+        if (guests < 1) {
+            throw new BadRequestException(ErrorCode.INVALID_GUEST_COUNT);
+        }
+        LocalDate today = LocalDate.now();
+        if (date == null || date.isBefore(today) || date.isAfter(today.plusDays(horizonDays))) {
+            throw new BadRequestException(ErrorCode.BOOKING_DATE_OUT_OF_RANGE);
+        }
+    }
+
+    /**
+     * Như checkBookable(guests, date), thêm giờ bắt đầu trong giờ mở cửa và booking kết thúc trước nửa đêm,
+     * để mọi ô của booking thuộc ngày bắt đầu (chỉ mục và DayOccupancy đều theo ngày đó)
+     */
+    public void checkBookable(int guests, LocalDateTime startedAt) {
+        checkBookable(guests, startedAt != null ? startedAt.toLocalDate() : null);
+        LocalTime time = startedAt.toLocalTime();
+        if (time.isBefore(OPENING_TIME) || !time.isBefore(CLOSING_TIME)
+                || startedAt.plus(slotDuration).isAfter(startedAt.toLocalDate().plusDays(1).atStartOfDay())) {
+            throw new BadRequestException(ErrorCode.BOOKING_OUTSIDE_OPENING_HOURS);
+        }
+    }
+
+    /**
+     * Các ô slotStep (tính từ 00:00) phủ khoảng [startedAt, startedAt + slotDuration).
+     * checkBookable(guests, startedAt) chặn booking vượt qua nửa đêm nên mọi ô thuộc cùng ngày bắt đầu.
+     */
+    public List<LocalDateTime> cellsOf(LocalDateTime startedAt) {
+        LocalDateTime midnight = startedAt.toLocalDate().atStartOfDay();
+        long stepSeconds = slotStep.getSeconds();
+        long offset = Duration.between(midnight, startedAt).getSeconds();
+        LocalDateTime cell = midnight.plusSeconds(offset - offset % stepSeconds);
+        LocalDateTime end = startedAt.plus(slotDuration);
+        List<LocalDateTime> cells = new ArrayList<>();
+        while (cell.isBefore(end)) {
+            cells.add(cell);
+            cell = cell.plus(slotStep);
+        }
+        return cells;
+    }
+
+    /**
+     * Các bàn đủ chỗ cho guests người và còn trống mọi ô của khung bắt đầu lúc at
+     */
+    public List<TableSlot> findAvailableTables(int guests, LocalDateTime at) {
+        DayOccupancy day = days.getOrDefault(at.toLocalDate(), EMPTY_DAY);
+        List<LocalDateTime> cells = cellsOf(at);
+        LocalDateTime now = LocalDateTime.now();
+        List<TableSlot> result = new ArrayList<>();
+        synchronized (day) {
+            for (TableSlot table : tables) {
+                if (table.seat() >= guests && day.isFree(table.id(), cells, now)) {
+                    result.add(table);
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean hasAvailableTable(int guests, LocalDateTime at) {
+        DayOccupancy day = days.getOrDefault(at.toLocalDate(), EMPTY_DAY);
+        List<LocalDateTime> cells = cellsOf(at);
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (day) {
+            for (TableSlot table : tables) {
+                if (table.seat() >= guests && day.isFree(table.id(), cells, now)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Các giờ bắt đầu trong ngày (từ open tới close, bước step) còn ít nhất một bàn phù hợp
+     */
+    public List<LocalDateTime> findAvailableSlots(int guests, LocalDate date, LocalTime open, LocalTime close, Duration step) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (LocalDateTime at = date.atTime(open); at.toLocalTime().isBefore(close) && at.toLocalDate().equals(date); at = at.plus(step)) {
+            if (at.isAfter(now) && hasAvailableTable(guests, at)) {
+                slots.add(at);
+            }
+        }
+        return slots;
+    }
+
+    // ============= ASSIGNMENT =============
+
+    /**
+     * Ghi nhận ngay trong bộ nhớ các ô vừa được claim cho booking (gán lại nếu booking đã có bàn);
+     * expiresAt != null là giữ chỗ tạm. Nguồn gốc vẫn là table_slot_claims; ngày này được nạp lại từ DB
+     * sau khi transaction kết thúc.
+     */
+    public void occupy(String bookingKey, Long tableId, LocalDateTime at, LocalDateTime expiresAt) {
+        DayOccupancy day = day(at.toLocalDate());
+        synchronized (day) {
+            day.remove(bookingKey);
+            for (LocalDateTime cell : cellsOf(at)) {
+                day.add(new Cell(bookingKey, tableId, cell, expiresAt));
+            }
+        }
+    }
+
+    public void release(String bookingKey, LocalDateTime at) {
+        DayOccupancy day = days.get(at.toLocalDate());
+        if (day != null) {
+            synchronized (day) {
+                day.remove(bookingKey);
+            }
+        }
+    }
+
+    // ============= SYNC =============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reloadTables(nextVersion(TABLES_SCOPE));
+        days.clear();
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        Map<LocalDate, List<Cell>> byDay = new HashMap<>();
+        for (Cell cell : loadCells(claimRepository.findActiveFrom(from, LocalDateTime.now()),
+                customerRepository.findByStatusAndStartedAtGreaterThanEqual(EPlaceTableStatus.CONFIRMED, from),
+                guestRepository.findByStatusAndStartedAtGreaterThanEqual(EPlaceTableStatus.CONFIRMED, from))) {
+            byDay.computeIfAbsent(cell.slot().toLocalDate(), d -> new ArrayList<>()).add(cell);
+        }
+        byDay.forEach((date, cells) -> {
+            DayOccupancy day = new DayOccupancy();
+            cells.forEach(day::add);
+            days.put(date, day);
+        });
+        log.info("Table availability rebuilt: {} tables, {} days with claimed tables", tables.size(), byDay.size());
+    }
+
+    @Scheduled(cron = "${app.booking.availability.evict-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(date -> date.isBefore(today));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onAvailabilityChanged(TableAvailabilityChangedEvent event) {
+        String scope = event.getDay() != null ? event.getDay().toString() : TABLES_SCOPE;
+        long version = nextVersion(scope);
+        applyChange(scope, version);
+        if (redisSync) {
+            try {
+                redisTemplate.getObject().convertAndSend(CHANGE_CHANNEL, scope + "@" + version);
+            } catch (Exception e) {
+                log.warn("Failed to broadcast table availability change for {}: {}", scope, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Nhận thông báo "scope@version" từ replica khác; bỏ qua nếu đã có version mới hơn
+     */
+    public void onRemoteChange(String message) {
+        int separator = message.lastIndexOf('@');
+        if (separator < 0) {
+            return;
+        }
+        try {
+            applyChange(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring invalid table availability message {}: {}", message, e.getMessage());
+        }
+    }
+
+    private void applyChange(String scope, long version) {
+        if (TABLES_SCOPE.equals(scope)) {
+            if (version > tablesVersion) {
+                reloadTables(version);
+            }
+            return;
+        }
+        LocalDate date = LocalDate.parse(scope);
+        if (date.isBefore(LocalDate.now())) {
+            return;
+        }
+        DayOccupancy day = days.get(date);
+        if (day != null) {
+            synchronized (day) {
+                if (version <= day.version) {
+                    return;
+                }
+            }
+        }
+        reloadDay(date, version);
+    }
+
+    private void reloadTables(long version) {
+        List<TableSlot> loaded = tableRepository.findAll().stream()
+                .filter(t -> t.getSeat() != null && t.getSeat() > 0)
+                .map(t -> new TableSlot(t.getId(), t.getTableNumber(), t.getSeat()))
+                .sorted(Comparator.comparingInt(TableSlot::seat).thenComparing(TableSlot::id))
+                .toList();
+        tables = loaded;
+        tablesVersion = version;
+    }
+
+    private void reloadDay(LocalDate date, long version) {
+        LocalDateTime from = date.atStartOfDay();
+        LocalDateTime to = date.plusDays(1).atStartOfDay();
+        List<Cell> cells = loadCells(claimRepository.findActiveBetween(from, to, LocalDateTime.now()),
+                customerRepository.findByStatusAndStartedAtGreaterThanEqualAndStartedAtLessThan(
+                        EPlaceTableStatus.CONFIRMED, from, to),
+                guestRepository.findByStatusAndStartedAtGreaterThanEqualAndStartedAtLessThan(
+                        EPlaceTableStatus.CONFIRMED, from, to));
+        DayOccupancy day = day(date);
+        synchronized (day) {
+            if (version <= day.version) {
+                return;
+            }
+            day.clear();
+            cells.forEach(day::add);
+            day.version = version;
+        }
+    }
+
+    /**
+     * Ô từ table_slot_claims (gồm giữ chỗ còn hạn), cộng với booking CONFIRMED đã có bàn nhưng chưa có claim
+     * (tạo trước khi có table_slot_claims)
+     */
+    private List<Cell> loadCells(List<TableSlotClaim> claims,
+                                 List<PlaceTableForCustomer> customerBookings,
+                                 List<PlaceTableForGuest> guestBookings) {
+        List<Cell> cells = new ArrayList<>();
+        Set<String> claimedKeys = new HashSet<>();
+        for (TableSlotClaim claim : claims) {
+            cells.add(new Cell(claim.getBookingKey(), claim.getTableId(), claim.getSlotStart(), claim.getExpiresAt()));
+            claimedKeys.add(claim.getBookingKey());
+        }
+        for (PlaceTableForCustomer booking : customerBookings) {
+            addLegacyCells(cells, claimedKeys, customerKey(booking.getId()), booking.getTable(), booking.getStartedAt());
+        }
+        for (PlaceTableForGuest booking : guestBookings) {
+            addLegacyCells(cells, claimedKeys, guestKey(booking.getId()), booking.getTable(), booking.getStartedAt());
+        }
+        return cells;
+    }
+
+    private void addLegacyCells(List<Cell> cells, Set<String> claimedKeys, String bookingKey,
+                                TableEntity table, LocalDateTime start) {
+        if (table == null || start == null || claimedKeys.contains(bookingKey)) {
+            // Booking cũ chưa được gán bàn thì không chiếm chỗ trong chỉ mục
+            return;
+        }
+        for (LocalDateTime cell : cellsOf(start)) {
+            cells.add(new Cell(bookingKey, table.getId(), cell, null));
+        }
+    }
+
+    private long nextVersion(String scope) {
+        if (redisSync) {
+            try {
+                Long version = redisTemplate.getObject().opsForValue().increment(VERSION_KEY_PREFIX + scope);
+                if (version != null) {
+                    return version;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to get table availability version from Redis for {}: {}", scope, e.getMessage());
+            }
+        }
+        return localVersion.incrementAndGet();
+    }
+
+    private DayOccupancy day(LocalDate date) {
+        return days.computeIfAbsent(date, d -> new DayOccupancy());
+    }
+
+    /**
+     * Trạng thái chiếm bàn của một ngày; mọi truy cập phải giữ lock trên chính object này
+     */
+    private static final class DayOccupancy {
+        private final Map<Long, Map<LocalDateTime, Cell>> byTable = new HashMap<>();
+        private final Map<String, List<Cell>> byBooking = new HashMap<>();
+        private long version;
+
+        boolean isFree(Long tableId, List<LocalDateTime> cells, LocalDateTime now) {
+            Map<LocalDateTime, Cell> occupied = byTable.get(tableId);
+            if (occupied == null) {
+                return true;
+            }
+            for (LocalDateTime slot : cells) {
+                Cell cell = occupied.get(slot);
+                if (cell != null && cell.isActive(now)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(Cell cell) {
+            byTable.computeIfAbsent(cell.tableId(), id -> new HashMap<>()).put(cell.slot(), cell);
+            byBooking.computeIfAbsent(cell.bookingKey(), key -> new ArrayList<>()).add(cell);
+        }
+
+        void remove(String bookingKey) {
+            List<Cell> cells = byBooking.remove(bookingKey);
+            if (cells == null) {
+                return;
+            }
+            for (Cell cell : cells) {
+                Map<LocalDateTime, Cell> occupied = byTable.get(cell.tableId());
+                if (occupied != null) {
+                    occupied.remove(cell.slot(), cell);
+                }
+            }
+        }
+
+        void clear() {
+            byTable.clear();
+            byBooking.clear();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.siupo.restaurant.service.table;
 
 import com.siupo.restaurant.dto.response.TableResponse;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TableService {
@@ -35,4 +37,14 @@ public interface TableService {
      * Xóa bàn
      */
     void deleteTable(Long id);
+
+    /**
+     * Các bàn đủ chỗ và còn trống tại thời điểm at
+     */
+    List<TableResponse> getAvailableTables(int guests, LocalDateTime at);
+
+    /**
+     * Các khung giờ trong ngày còn bàn cho số khách
+     */
+    List<LocalDateTime> getAvailableSlots(int guests, LocalDate date);
 }
@@ -7,11 +7,16 @@ import com.siupo.restaurant.model.TableEntity;
 import com.siupo.restaurant.repository.TableRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,6 +27,11 @@ import java.util.stream.Collectors;
 public class TableServiceImpl implements TableService {
 
     private final TableRepository tableRepository;
+    private final TableAvailabilityEngine tableAvailabilityEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.booking.slot-step:PT30M}")
+    private Duration slotStep;
 
     @Override
     @EventListener(ApplicationReadyEvent.class)
@@ -48,6 +58,7 @@ public class TableServiceImpl implements TableService {
             }
             
             log.info("Successfully initialized 10 tables");
+            eventPublisher.publishEvent(new TableAvailabilityChangedEvent(null));
         } else {
             log.info("Tables already exist ({}), skipping initialization", count);
         }
@@ -80,6 +91,7 @@ public class TableServiceImpl implements TableService {
         
         TableEntity saved = tableRepository.save(table);
         log.info("Created new table: {} - QR: {}", tableNumber, qrCode);
+        eventPublisher.publishEvent(new TableAvailabilityChangedEvent(null));
         
         return mapToResponse(saved);
     }
@@ -100,6 +112,7 @@ public class TableServiceImpl implements TableService {
         
         TableEntity updated = tableRepository.save(table);
         log.info("Updated table ID {}: {} - {} seats", id, tableNumber, seat);
+        eventPublisher.publishEvent(new TableAvailabilityChangedEvent(null));
         
         return mapToResponse(updated);
     }
@@ -113,6 +126,30 @@ public class TableServiceImpl implements TableService {
         
         tableRepository.deleteById(id);
         log.info("Deleted table ID: {}", id);
+        eventPublisher.publishEvent(new TableAvailabilityChangedEvent(null));
+    }
+
+    /**
+     * Trả lời hoàn toàn từ bộ nhớ: TableSlot đã có id, số bàn và số ghế; endpoint công khai nên không trả QR
+     */
+    @Override
+    public List<TableResponse> getAvailableTables(int guests, LocalDateTime at) {
+        tableAvailabilityEngine.checkBookable(guests, at);
+        // Giữ thứ tự bàn vừa nhất trước
+        return tableAvailabilityEngine.findAvailableTables(guests, at).stream()
+                .map(slot -> TableResponse.builder()
+                        .id(slot.id())
+                        .tableNumber(slot.tableNumber())
+                        .seat(slot.seat())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<LocalDateTime> getAvailableSlots(int guests, LocalDate date) {
+        tableAvailabilityEngine.checkBookable(guests, date);
+        return tableAvailabilityEngine.findAvailableSlots(guests, date,
+                TableAvailabilityEngine.OPENING_TIME, TableAvailabilityEngine.CLOSING_TIME, slotStep);
     }
 
     // ===== HELPER METHODS =====
@@ -0,0 +1,112 @@
+package com.siupo.restaurant.service.table;
+
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.repository.TableSlotClaimRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Giữ bàn theo từng ô (bàn, khung giờ) bằng unique constraint trên table_slot_claims:
+ * - hold: booking PENDING giữ tạm một bàn trong holdTtl
+ * - confirm: chuyển giữ chỗ thành cố định, hoặc claim bàn khác nếu giữ chỗ đã hết hạn
+ * - release: trả mọi ô của booking
+ * Hai request tranh cùng ô chỉ chờ nhau trên đúng dòng unique đó, không có lock toàn cục.
+ * Mọi thao tác chạy trong transaction của booking nên claim commit/rollback cùng booking.
+ * Ô được tính bằng TableAvailabilityEngine.cellsOf và ghi ngay vào chỉ mục, nên chỉ mục và claim dùng cùng mô hình.
+ */
+@Slf4j
+@Component
+public class TableSlotClaimEngine {
+    private final TableSlotClaimRepository claimRepository;
+    private final TableAvailabilityEngine tableAvailabilityEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration holdTtl;
+
+    public TableSlotClaimEngine(TableSlotClaimRepository claimRepository,
+                                TableAvailabilityEngine tableAvailabilityEngine,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.booking.hold-ttl:PT12H}") Duration holdTtl) {
+        this.claimRepository = claimRepository;
+        this.tableAvailabilityEngine = tableAvailabilityEngine;
+        this.eventPublisher = eventPublisher;
+        this.holdTtl = holdTtl;
+    }
+
+    /**
+     * Giữ tạm một bàn cho booking PENDING; replica khác nạp lại ngày này sau khi transaction kết thúc
+     */
+    @Transactional
+    public Long hold(String bookingKey, int guests, LocalDateTime startedAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(holdTtl);
+        Long tableId = claimFirstFree(bookingKey, guests, startedAt, expiresAt, now);
+        tableAvailabilityEngine.occupy(bookingKey, tableId, startedAt, expiresAt);
+        eventPublisher.publishEvent(new TableAvailabilityChangedEvent(startedAt.toLocalDate()));
+        return tableId;
+    }
+
+    @Transactional
+    public Long confirm(String bookingKey, int guests, LocalDateTime startedAt) {
+        LocalDateTime now = LocalDateTime.now();
+        int expected = tableAvailabilityEngine.cellsOf(startedAt).size();
+        Long tableId;
+        if (claimRepository.makePermanent(bookingKey, now) == expected) {
+            tableId = claimRepository.findTableIdByBookingKey(bookingKey);
+        } else {
+            // Giữ chỗ đã hết hạn (một phần đã có thể thuộc booking khác): claim lại từ đầu
+            claimRepository.deleteByBookingKey(bookingKey);
+            tableAvailabilityEngine.release(bookingKey, startedAt);
+            tableId = claimFirstFree(bookingKey, guests, startedAt, null, now);
+        }
+        tableAvailabilityEngine.occupy(bookingKey, tableId, startedAt, null);
+        return tableId;
+    }
+
+    @Transactional
+    public void release(String bookingKey) {
+        claimRepository.deleteByBookingKey(bookingKey);
+    }
+
+    @Scheduled(fixedDelayString = "${app.booking.hold-cleanup-interval:PT15M}")
+    @Transactional
+    public void purgeExpiredHolds() {
+        int deleted = claimRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired table slot holds", deleted);
+        }
+    }
+
+    /**
+     * Thử lần lượt các bàn mà chỉ mục cho là trống (vừa nhất trước); bàn nào bị booking khác claim
+     * trước ở bất kỳ ô nào thì trả các ô vừa chèn và thử bàn kế tiếp.
+     */
+    private Long claimFirstFree(String bookingKey, int guests, LocalDateTime startedAt,
+                                LocalDateTime expiresAt, LocalDateTime now) {
+        List<LocalDateTime> cells = tableAvailabilityEngine.cellsOf(startedAt);
+        for (TableAvailabilityEngine.TableSlot table : tableAvailabilityEngine.findAvailableTables(guests, startedAt)) {
+            claimRepository.deleteExpiredSlots(table.id(), cells, now);
+            boolean claimed = true;
+            for (LocalDateTime cell : cells) {
+                if (claimRepository.insertIgnore(table.id(), cell, bookingKey, expiresAt, now) == 0) {
+                    claimed = false;
+                    break;
+                }
+            }
+            if (claimed) {
+                return table.id();
+            }
+            claimRepository.deleteByBookingKey(bookingKey);
+            log.debug("Table {} already claimed for {}, trying next table", table.id(), startedAt);
+        }
+        throw new BadRequestException(ErrorCode.NO_TABLE_AVAILABLE);
+    }
+}
@@ -8,7 +8,9 @@ import com.siupo.restaurant.exception.business.ResourceNotFoundException;
 import com.siupo.restaurant.mapper.TagMapper;
 import com.siupo.restaurant.model.ProductTag;
 import com.siupo.restaurant.repository.ProductTagRepository;
+import com.siupo.restaurant.service.page.ShopDataChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,6 +21,7 @@ import java.util.stream.Collectors;
 public class TagServiceImpl implements TagService {
     private final ProductTagRepository productTagRepository;
     private final TagMapper tagMapper ;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<TagResponse> getAllTags() {
@@ -45,6 +48,7 @@ public class TagServiceImpl implements TagService {
                 .description(request.getDescription())
                 .build();
         ProductTag savedTag = productTagRepository.save(tag);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("tag"));
         return tagMapper.toResponse(savedTag);
     }
 
@@ -61,6 +65,7 @@ public class TagServiceImpl implements TagService {
         tag.setName(request.getName());
         tag.setDescription(request.getDescription());
         ProductTag updatedTag = productTagRepository.save(tag);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("tag"));
         return tagMapper.toResponse(updatedTag);
     }
 
@@ -69,5 +74,6 @@ public class TagServiceImpl implements TagService {
         ProductTag tag = productTagRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException(ErrorCode.TAG_NOT_FOUND));
         productTagRepository.delete(tag);
+        eventPublisher.publishEvent(new ShopDataChangedEvent("tag"));
     }
 }
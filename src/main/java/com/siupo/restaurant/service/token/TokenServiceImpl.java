@@ -34,7 +34,7 @@ public class TokenServiceImpl implements TokenService {
     public LoginResponse generateAuthResponse(User user) {
         // 1. Tạo Access Token
         String role = getUserRole(user);
-        String accessToken = jwtTokenProvider.generateAccessToken(user.getEmail(), List.of("ROLE_" + role));
+        String accessToken = jwtTokenProvider.generateAccessToken(user.getId(), user.getEmail(), List.of("ROLE_" + role));
         // 2. Tạo Refresh Token
         String refreshTokenValue = UUID.randomUUID().toString();
         RefreshToken refreshToken = RefreshToken.builder()
@@ -0,0 +1,13 @@
+package com.siupo.restaurant.service.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi thông tin, mật khẩu hoặc trạng thái user thay đổi để xoá principal đã cache
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private final String email;
+}
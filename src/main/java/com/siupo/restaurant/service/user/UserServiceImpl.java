@@ -15,6 +15,7 @@ import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.repository.CustomerRepository;
 import com.siupo.restaurant.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +30,7 @@ public class UserServiceImpl implements UserService {
     private final CustomerRepository customerRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public User getUserByEmail(String email) {
@@ -58,7 +60,9 @@ public class UserServiceImpl implements UserService {
         }
         updateBasicInfo(user, request);
         updateAvatar(user, request);
-        return userMapper.toResponse(userRepository.save(user));
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getEmail()));
+        return userMapper.toResponse(savedUser);
     }
 
     @Override
@@ -74,6 +78,7 @@ public class UserServiceImpl implements UserService {
             throw new BadRequestException(ErrorCode.NEW_PASSWORD_SAME_AS_OLD);
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
     }
 
     @Override
@@ -91,6 +96,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
         customer.setStatus(status);
         customerRepository.save(customer);
+        eventPublisher.publishEvent(new UserChangedEvent(customer.getEmail()));
     }
 
     private void updateBasicInfo(User user, UserRequest request) {
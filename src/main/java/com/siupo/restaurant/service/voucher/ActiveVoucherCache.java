@@ -0,0 +1,102 @@
+package com.siupo.restaurant.service.voucher;
+
+import com.siupo.restaurant.enums.EVoucherStatus;
+import com.siupo.restaurant.model.Voucher;
+import com.siupo.restaurant.repository.VoucherRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cache các voucher public đang ACTIVE và chưa hết hạn (kể cả voucher sắp bắt đầu).
+ * Làm mới khi có thay đổi voucher, khi tới mốc start/end gần nhất, hoặc khi quá TTL
+ * (TTL để đồng bộ với thay đổi từ node khác).
+ * usedCount trong entity có thể cũ, người gọi cần đọc lại usedCount nếu cần chính xác.
+ */
+@Slf4j
+@Component
+public class ActiveVoucherCache {
+    private final VoucherRepository voucherRepository;
+    private final Duration ttl;
+
+    private volatile Snapshot snapshot;
+
+    public ActiveVoucherCache(VoucherRepository voucherRepository,
+                              @Value("${app.voucher.active-cache-ttl:PT1M}") Duration ttl) {
+        this.voucherRepository = voucherRepository;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Danh sách voucher đang trong thời gian hiệu lực tại thời điểm now
+     */
+    public List<Voucher> getLiveVouchers(LocalDateTime now) {
+        return currentSnapshot(now).vouchers().stream()
+                .filter(v -> !now.isBefore(v.getStartDate()) && !now.isAfter(v.getEndDate()))
+                .toList();
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public void evict(Long voucherId) {
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            List<Voucher> remaining = current.vouchers().stream()
+                    .filter(v -> !v.getId().equals(voucherId))
+                    .toList();
+            snapshot = new Snapshot(remaining, current.nextBoundary(), current.expiresAt());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoucherChanged(VoucherChangedEvent event) {
+        invalidate();
+    }
+
+    private Snapshot currentSnapshot(LocalDateTime now) {
+        Snapshot current = snapshot;
+        if (current != null && current.isFresh(now)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.isFresh(now)) {
+                return current;
+            }
+            List<Voucher> vouchers = List.copyOf(
+                    voucherRepository.findLiveAndUpcomingVouchers(EVoucherStatus.ACTIVE, now));
+            current = new Snapshot(vouchers, nextBoundary(vouchers, now), Instant.now().plus(ttl));
+            snapshot = current;
+            log.debug("Loaded {} active vouchers, next boundary at {}", vouchers.size(), current.nextBoundary());
+            return current;
+        }
+    }
+
+    private LocalDateTime nextBoundary(List<Voucher> vouchers, LocalDateTime now) {
+        LocalDateTime next = null;
+        for (Voucher voucher : vouchers) {
+            LocalDateTime boundary = voucher.getStartDate().isAfter(now) ? voucher.getStartDate() : voucher.getEndDate();
+            if (next == null || boundary.isBefore(next)) {
+                next = boundary;
+            }
+        }
+        return next;
+    }
+
+    private record Snapshot(List<Voucher> vouchers, LocalDateTime nextBoundary, Instant expiresAt) {
+        boolean isFresh(LocalDateTime now) {
+            return Instant.now().isBefore(expiresAt) && (nextBoundary == null || now.isBefore(nextBoundary));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.siupo.restaurant.service.voucher;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi voucher được tạo, sửa, xoá hoặc đổi trạng thái để làm mới cache voucher đang hoạt động
+ */
+@Getter
+@AllArgsConstructor
+public class VoucherChangedEvent {
+    private final Long voucherId;
+}
@@ -0,0 +1,147 @@
+package com.siupo.restaurant.service.voucher;
+
+import com.siupo.restaurant.enums.EVoucherStatus;
+import com.siupo.restaurant.model.Voucher;
+import com.siupo.restaurant.repository.VoucherRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Lên lịch theo mốc startDate/endDate của từng voucher (mỗi voucher chỉ giữ 1 task cho mốc kế tiếp):
+ * - tới startDate: làm mới cache voucher đang hoạt động
+ * - tới endDate: chuyển sang EXPIRED bằng 1 câu UPDATE hàng loạt và xoá khỏi cache
+ * Khi khởi động sẽ dựng lại lịch từ database. Task chỉ nằm trong bộ nhớ của replica đã lên lịch, nên có thêm
+ * lượt quét định kỳ (mặc định mỗi giờ) để hết hạn voucher bị lỡ và lên lịch voucher được tạo ở replica khác.
+ */
+@Slf4j
+@Component
+public class VoucherLifecycleScheduler {
+    private final VoucherRepository voucherRepository;
+    private final ActiveVoucherCache activeVoucherCache;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+
+    public VoucherLifecycleScheduler(VoucherRepository voucherRepository,
+                                     ActiveVoucherCache activeVoucherCache,
+                                     TaskScheduler taskScheduler,
+                                     PlatformTransactionManager transactionManager) {
+        this.voucherRepository = voucherRepository;
+        this.activeVoucherCache = activeVoucherCache;
+        this.taskScheduler = taskScheduler;
+        // REQUIRES_NEW vì có thể được gọi từ listener AFTER_COMMIT của transaction khác
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        scheduledTasks.values().forEach(task -> task.cancel(false));
+        scheduledTasks.clear();
+        expireEndedVouchers();
+        List<Voucher> vouchers = voucherRepository.findByStatusNotAndEndDateAfter(EVoucherStatus.EXPIRED, LocalDateTime.now());
+        vouchers.forEach(this::schedule);
+        log.info("Scheduled lifecycle boundaries for {} vouchers", vouchers.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoucherChanged(VoucherChangedEvent event) {
+        if (event.getVoucherId() == null) {
+            rebuild();
+            return;
+        }
+        voucherRepository.findById(event.getVoucherId()).ifPresentOrElse(
+                this::schedule,
+                () -> cancel(event.getVoucherId()));
+    }
+
+    @Scheduled(cron = "${app.voucher.expire-sweep-cron:0 0 * * * *}")
+    public void sweep() {
+        try {
+            expireEndedVouchers();
+            voucherRepository.findByStatusNotAndEndDateAfter(EVoucherStatus.EXPIRED, LocalDateTime.now()).stream()
+                    .filter(voucher -> !scheduledTasks.containsKey(voucher.getId()))
+                    .forEach(this::schedule);
+        } catch (Exception e) {
+            log.error("Error sweeping voucher lifecycle: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Chuyển mọi voucher đã quá endDate sang EXPIRED, trả về số voucher bị cập nhật
+     */
+    public int expireEndedVouchers() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status ->
+                voucherRepository.expireEndedVouchers(now, EVoucherStatus.EXPIRED));
+        if (updated != null && updated > 0) {
+            activeVoucherCache.invalidate();
+            log.info("Expired {} vouchers at {}", updated, now);
+        }
+        return updated != null ? updated : 0;
+    }
+
+    private void schedule(Voucher voucher) {
+        Long voucherId = voucher.getId();
+        LocalDateTime now = LocalDateTime.now();
+        if (voucher.getStatus() == EVoucherStatus.EXPIRED) {
+            cancel(voucherId);
+            return;
+        }
+        boolean beforeStart = voucher.getStartDate().isAfter(now);
+        LocalDateTime boundary = beforeStart ? voucher.getStartDate() : voucher.getEndDate();
+        Runnable task = beforeStart
+                ? () -> onStart(voucherId)
+                : () -> onEnd(voucherId);
+        scheduledTasks.compute(voucherId, (id, previous) -> {
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            return taskScheduler.schedule(task, boundary.atZone(ZoneId.systemDefault()).toInstant());
+        });
+    }
+
+    private void cancel(Long voucherId) {
+        ScheduledFuture<?> previous = scheduledTasks.remove(voucherId);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void onStart(Long voucherId) {
+        try {
+            activeVoucherCache.invalidate();
+            // Voucher có thể đã bị sửa ở node khác, đọc lại để lên lịch mốc endDate
+            voucherRepository.findById(voucherId).ifPresentOrElse(this::schedule, () -> cancel(voucherId));
+        } catch (Exception e) {
+            log.error("Error handling start boundary of voucher {}: {}", voucherId, e.getMessage(), e);
+        }
+    }
+
+    private void onEnd(Long voucherId) {
+        scheduledTasks.remove(voucherId);
+        try {
+            // Các voucher kết thúc cùng lúc được cập nhật chung trong 1 câu UPDATE
+            expireEndedVouchers();
+            activeVoucherCache.evict(voucherId);
+        } catch (Exception e) {
+            log.error("Error handling end boundary of voucher {}: {}", voucherId, e.getMessage(), e);
+        }
+    }
+}
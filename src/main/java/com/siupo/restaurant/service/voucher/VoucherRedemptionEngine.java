@@ -0,0 +1,79 @@
+package com.siupo.restaurant.service.voucher;
+
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.repository.VoucherRepository;
+import com.siupo.restaurant.repository.VoucherUsageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quản lý lượt dùng voucher bằng UPDATE có điều kiện trên DB:
+ * - reserve: check + tăng usedCount nguyên tử, không đọc-sửa-ghi nên không oversell
+ * - release: trả lại lượt khi đơn bị huỷ
+ * - reconcile: định kỳ đồng bộ usedCount với số bản ghi VoucherUsage
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoucherRedemptionEngine {
+    private final VoucherRepository voucherRepository;
+    private final VoucherUsageRepository voucherUsageRepository;
+
+    /**
+     * Phải chạy trong transaction của đơn hàng để lượt giữ chỗ rollback cùng đơn nếu lỗi
+     */
+    @Transactional
+    public void reserve(Long voucherId) {
+        if (voucherRepository.tryReserveUsage(voucherId) == 0) {
+            throw new BadRequestException(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+        }
+    }
+
+    /**
+     * Xoá VoucherUsage của đơn và trả lại lượt; gọi lại nhiều lần vẫn an toàn
+     */
+    @Transactional
+    public void release(Long voucherId, Long orderId) {
+        int deleted = voucherUsageRepository.deleteByOrderId(orderId);
+        if (deleted > 0) {
+            voucherRepository.releaseUsage(voucherId);
+            log.info("Released voucher {} reservation for canceled order {}", voucherId, orderId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.voucher.reconcile-interval:PT10M}",
+            initialDelayString = "${app.voucher.reconcile-interval:PT10M}")
+    @Transactional
+    public void reconcile() {
+        try {
+            // Đọc usedCount trước, sau đó mới đếm usage (xem reconcileUsedCount)
+            List<Object[]> usedCounts = voucherRepository.findAllUsedCounts();
+            Map<Long, Long> actualCounts = new HashMap<>();
+            for (Object[] row : voucherUsageRepository.countGroupByVoucher()) {
+                actualCounts.put((Long) row[0], (Long) row[1]);
+            }
+            int fixed = 0;
+            for (Object[] row : usedCounts) {
+                Long voucherId = (Long) row[0];
+                Integer observed = (Integer) row[1];
+                int actual = actualCounts.getOrDefault(voucherId, 0L).intValue();
+                if (observed != actual) {
+                    fixed += voucherRepository.reconcileUsedCount(voucherId, observed, actual);
+                }
+            }
+            if (fixed > 0) {
+                log.warn("Reconciled usedCount of {} vouchers with voucher usages", fixed);
+            }
+        } catch (Exception e) {
+            log.error("Error during voucher usage reconciliation: {}", e.getMessage(), e);
+        }
+    }
+}
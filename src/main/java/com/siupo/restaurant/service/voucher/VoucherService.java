@@ -1,8 +1,10 @@
 package com.siupo.restaurant.service.voucher;
 
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.VoucherResponse;
 import com.siupo.restaurant.dto.request.ApplyVoucherRequest;
 import com.siupo.restaurant.dto.response.VoucherDiscountResponse;
+import com.siupo.restaurant.model.Order;
 import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.model.Voucher;
 import org.springframework.data.domain.Page;
@@ -25,11 +27,13 @@ public interface VoucherService {
     VoucherResponse updateVoucher(Long id, VoucherResponse voucherResponse);
     void deleteVoucher(Long id);
     Page<VoucherResponse> getAllVouchers(Pageable pageable);
+    CursorPageResponse<VoucherResponse> getAllVouchersByCursor(String cursor, int size, boolean includeTotal);
     VoucherResponse getVoucherById(Long id);
     VoucherResponse toggleVoucherStatus(Long id);
     
     // ========== Internal use ==========
-    void recordVoucherUsage(Voucher voucher, User user, Long orderId, Double discountAmount);
+    void recordVoucherUsage(Voucher voucher, User user, Order order, Double discountAmount);
+    void releaseVoucherUsage(Order order);
     boolean canUserUseVoucher(Voucher voucher, User user);
     Voucher getVoucherEntityByCode(String code);
     void updateExpiredVouchers();
@@ -1,5 +1,6 @@
 package com.siupo.restaurant.service.voucher;
 
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import com.siupo.restaurant.dto.response.VoucherResponse;
 import com.siupo.restaurant.dto.request.ApplyVoucherRequest;
 import com.siupo.restaurant.dto.response.VoucherDiscountResponse;
@@ -8,22 +9,26 @@ import com.siupo.restaurant.exception.base.ErrorCode;
 import com.siupo.restaurant.exception.business.BadRequestException;
 import com.siupo.restaurant.exception.business.NotFoundException;
 import com.siupo.restaurant.mapper.VoucherMapper;
+import com.siupo.restaurant.model.Order;
 import com.siupo.restaurant.model.User;
 import com.siupo.restaurant.model.Voucher;
 import com.siupo.restaurant.model.VoucherUsage;
-import com.siupo.restaurant.repository.OrderRepository;
 import com.siupo.restaurant.repository.VoucherRepository;
 import com.siupo.restaurant.repository.VoucherUsageRepository;
+import com.siupo.restaurant.util.KeysetCursor;
+import com.siupo.restaurant.util.PageableUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,20 +38,24 @@ public class VoucherServiceImpl implements VoucherService {
 
     private final VoucherRepository voucherRepository;
     private final VoucherUsageRepository voucherUsageRepository;
-    private final OrderRepository orderRepository;
     private final VoucherMapper voucherMapper;
+    private final VoucherRedemptionEngine voucherRedemptionEngine;
+    private final ActiveVoucherCache activeVoucherCache;
+    private final VoucherLifecycleScheduler voucherLifecycleScheduler;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ========== Public APIs (No auth required) ==========
 
     @Override
     @Transactional(readOnly = true)
     public List<VoucherResponse> getPublicVouchers() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Voucher> vouchers = voucherRepository.findAvailableVouchers(EVoucherStatus.ACTIVE, now);
+        List<Voucher> vouchers = activeVoucherCache.getLiveVouchers(LocalDateTime.now());
+        Map<Long, Integer> usedCounts = loadUsedCounts(vouchers);
         return vouchers.stream()
-                .filter(Voucher::getIsPublic)
+                .filter(voucher -> hasRemainingUsage(voucher, usedCounts.get(voucher.getId())))
                 .map(voucher -> {
                     VoucherResponse dto = voucherMapper.toDto(voucher);
+                    dto.setUsedCount(usedCounts.get(voucher.getId()));
                     dto.setIsAvailable(true);
                     dto.setUserUsageCount(0);
                     return dto;
@@ -59,13 +68,24 @@ public class VoucherServiceImpl implements VoucherService {
     @Override
     @Transactional(readOnly = true)
     public List<VoucherResponse> getAvailableVouchers(User user) {
-        LocalDateTime now = LocalDateTime.now();
-        List<Voucher> vouchers = voucherRepository.findAvailableVouchers(EVoucherStatus.ACTIVE, now);
+        // Danh sách voucher lấy từ cache, usedCount và lượt dùng của user mỗi loại 1 query
+        List<Voucher> vouchers = activeVoucherCache.getLiveVouchers(LocalDateTime.now());
+        if (vouchers.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> usedCounts = loadUsedCounts(vouchers);
+        Map<Long, Long> userUsageCounts = new HashMap<>();
+        for (Object[] row : voucherUsageRepository.countGroupByVoucherForUser(user.getId())) {
+            userUsageCounts.put((Long) row[0], (Long) row[1]);
+        }
         return vouchers.stream()
+                .filter(voucher -> hasRemainingUsage(voucher, usedCounts.get(voucher.getId())))
                 .map(voucher -> {
+                    long userUsageCount = userUsageCounts.getOrDefault(voucher.getId(), 0L);
                     VoucherResponse dto = voucherMapper.toDto(voucher);
-                    dto.setIsAvailable(canUserUseVoucher(voucher, user));
-                    dto.setUserUsageCount((int) voucherUsageRepository.countByVoucherAndUser(voucher, user));
+                    dto.setUsedCount(usedCounts.get(voucher.getId()));
+                    dto.setIsAvailable(isWithinUserLimit(voucher, userUsageCount));
+                    dto.setUserUsageCount((int) userUsageCount);
                     return dto;
                 })
                 .collect(Collectors.toList());
@@ -95,9 +115,11 @@ public class VoucherServiceImpl implements VoucherService {
     public VoucherResponse getVoucherByCode(String code, User user) {
         Voucher voucher = voucherRepository.findByCode(code)
                 .orElseThrow(() -> new NotFoundException(ErrorCode.VOUCHER_NOT_FOUND));
+        long userUsageCount = voucherUsageRepository.countByVoucherAndUser(voucher, user);
         VoucherResponse dto = voucherMapper.toDto(voucher);
-        dto.setIsAvailable(canUserUseVoucher(voucher, user));
-        dto.setUserUsageCount((int) voucherUsageRepository.countByVoucherAndUser(voucher, user));
+        dto.setIsAvailable(isUsable(voucher, voucher.getUsedCount(), LocalDateTime.now())
+                && isWithinUserLimit(voucher, userUsageCount));
+        dto.setUserUsageCount((int) userUsageCount);
         return dto;
     }
 
@@ -128,7 +150,9 @@ public class VoucherServiceImpl implements VoucherService {
                 .status(voucherResponse.getStatus() != null ? voucherResponse.getStatus() : EVoucherStatus.ACTIVE)
                 .isPublic(voucherResponse.getIsPublic() != null ? voucherResponse.getIsPublic() : true)
                 .build();
-        return voucherMapper.toDto(voucherRepository.save(voucher));
+        Voucher saved = voucherRepository.save(voucher);
+        eventPublisher.publishEvent(new VoucherChangedEvent(saved.getId()));
+        return voucherMapper.toDto(saved);
     }
 
     @Override
@@ -159,7 +183,9 @@ public class VoucherServiceImpl implements VoucherService {
         voucher.setEndDate(voucherResponse.getEndDate());
         voucher.setStatus(voucherResponse.getStatus());
         voucher.setIsPublic(voucherResponse.getIsPublic());
-        return voucherMapper.toDto(voucherRepository.save(voucher));
+        Voucher saved = voucherRepository.save(voucher);
+        eventPublisher.publishEvent(new VoucherChangedEvent(saved.getId()));
+        return voucherMapper.toDto(saved);
     }
 
     @Override
@@ -169,6 +195,7 @@ public class VoucherServiceImpl implements VoucherService {
                 .orElseThrow(() -> new NotFoundException(ErrorCode.VOUCHER_NOT_FOUND));
         voucher.setStatus(EVoucherStatus.EXPIRED);
         voucherRepository.save(voucher);
+        eventPublisher.publishEvent(new VoucherChangedEvent(id));
     }
 
     @Override
@@ -178,6 +205,17 @@ public class VoucherServiceImpl implements VoucherService {
         return vouchers.map(voucherMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<VoucherResponse> getAllVouchersByCursor(String cursor, int size, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Voucher> vouchers = voucherRepository.findAllBefore(after.createdAt(), after.id(), PageableUtil.keysetLimit(size));
+        return PageableUtil.toCursorPage(vouchers, size,
+                voucher -> new KeysetCursor(voucher.getCreatedAt(), voucher.getId()),
+                voucherMapper::toDto,
+                includeTotal ? voucherRepository.count() : null);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public VoucherResponse getVoucherById(Long id) {
@@ -196,42 +234,44 @@ public class VoucherServiceImpl implements VoucherService {
         } else if (voucher.getStatus() == EVoucherStatus.INACTIVE) {
             voucher.setStatus(EVoucherStatus.ACTIVE);
         }
-        return voucherMapper.toDto(voucherRepository.save(voucher));
+        Voucher saved = voucherRepository.save(voucher);
+        eventPublisher.publishEvent(new VoucherChangedEvent(id));
+        return voucherMapper.toDto(saved);
     }
 
     // ========== Internal Methods ==========
 
     @Override
     @Transactional
-    public void recordVoucherUsage(Voucher voucher, User user, Long orderId, Double discountAmount) {
+    public void recordVoucherUsage(Voucher voucher, User user, Order order, Double discountAmount) {
+        // Giữ chỗ nguyên tử trước, hết lượt thì ném lỗi và rollback cả đơn
+        voucherRedemptionEngine.reserve(voucher.getId());
         VoucherUsage usage = VoucherUsage.builder()
                 .voucher(voucher)
                 .user(user)
-                .order(orderId != null ? orderRepository.findById(orderId).orElse(null) : null)
+                .order(order)
                 .discountAmount(discountAmount)
                 .build();
         voucherUsageRepository.save(usage);
-        voucher.setUsedCount(voucher.getUsedCount() + 1);
-        voucherRepository.save(voucher);
     }
 
     @Override
-    public boolean canUserUseVoucher(Voucher voucher, User user) {
-        if (voucher.getStatus() != EVoucherStatus.ACTIVE) {
-            return false;
-        }
-        LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(voucher.getStartDate()) || now.isAfter(voucher.getEndDate())) {
-            return false;
+    @Transactional
+    public void releaseVoucherUsage(Order order) {
+        if (order.getVoucher() == null) {
+            return;
         }
-        // Check total usage limit
-        if (voucher.getUsageLimit() > 0 && voucher.getUsedCount() >= voucher.getUsageLimit()) {
+        voucherRedemptionEngine.release(order.getVoucher().getId(), order.getId());
+    }
+
+    @Override
+    public boolean canUserUseVoucher(Voucher voucher, User user) {
+        if (!isUsable(voucher, voucher.getUsedCount(), LocalDateTime.now())) {
             return false;
         }
         // Check per-user usage limit
-        if (voucher.getUsageLimitPerUser() != null && voucher.getUsageLimitPerUser() > 0
-            && voucherUsageRepository.countByVoucherAndUser(voucher, user) >= voucher.getUsageLimitPerUser()) {
-                return false;
+        if (voucher.getUsageLimitPerUser() != null && voucher.getUsageLimitPerUser() > 0) {
+            return isWithinUserLimit(voucher, voucherUsageRepository.countByVoucherAndUser(voucher, user));
         }
         return true;
     }
@@ -244,21 +284,48 @@ public class VoucherServiceImpl implements VoucherService {
     }
 
     @Override
-    @Transactional
-    @Scheduled(cron = "0 0 0 * * *") // Run daily at midnight
     public void updateExpiredVouchers() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Voucher> expiredVouchers = voucherRepository.findExpiredVouchers(now, EVoucherStatus.EXPIRED);
-        for (Voucher voucher : expiredVouchers) {
-            voucher.setStatus(EVoucherStatus.EXPIRED);
+        // Đã chuyển sang VoucherLifecycleScheduler (chạy đúng mốc endDate), giữ lại để gọi thủ công
+        voucherLifecycleScheduler.expireEndedVouchers();
+    }
+
+    // ========== Private Helper Methods ==========
+
+    private boolean isUsable(Voucher voucher, Integer usedCount, LocalDateTime now) {
+        if (voucher.getStatus() != EVoucherStatus.ACTIVE) {
+            return false;
         }
-        if (!expiredVouchers.isEmpty()) {
-            voucherRepository.saveAll(expiredVouchers);
-            log.info("Updated {} expired vouchers", expiredVouchers.size());
+        if (now.isBefore(voucher.getStartDate()) || now.isAfter(voucher.getEndDate())) {
+            return false;
         }
+        // Check total usage limit
+        return hasRemainingUsage(voucher, usedCount);
     }
 
-    // ========== Private Helper Methods ==========
+    private boolean hasRemainingUsage(Voucher voucher, Integer usedCount) {
+        int used = usedCount != null ? usedCount : voucher.getUsedCount();
+        return voucher.getUsageLimit() == 0 || used < voucher.getUsageLimit();
+    }
+
+    private boolean isWithinUserLimit(Voucher voucher, long userUsageCount) {
+        return voucher.getUsageLimitPerUser() == null || voucher.getUsageLimitPerUser() <= 0
+                || userUsageCount < voucher.getUsageLimitPerUser();
+    }
+
+    /**
+     * usedCount trong cache có thể cũ nên đọc lại bằng 1 query theo danh sách id
+     */
+    private Map<Long, Integer> loadUsedCounts(List<Voucher> vouchers) {
+        Map<Long, Integer> usedCounts = new HashMap<>();
+        if (vouchers.isEmpty()) {
+            return usedCounts;
+        }
+        List<Long> ids = vouchers.stream().map(Voucher::getId).toList();
+        for (Object[] row : voucherRepository.findUsedCountsByIds(ids)) {
+            usedCounts.put((Long) row[0], (Integer) row[1]);
+        }
+        return usedCounts;
+    }
 
     private void validateVoucher(Voucher voucher, User user, Double orderAmount) {
         // Check if user can use voucher
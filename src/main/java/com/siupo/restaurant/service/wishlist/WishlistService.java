@@ -3,10 +3,13 @@ package com.siupo.restaurant.service.wishlist;
 import com.siupo.restaurant.dto.response.WishlistResponse;
 import com.siupo.restaurant.model.User;
 
+import java.util.Set;
+
 public interface WishlistService {
     WishlistResponse getWishlist(User user);
     WishlistResponse addToWishlist(User user, Long productId);
     WishlistResponse removeFromWishlist(User user, Long productId);
     void clearWishlist(User user);
     boolean isProductInWishlist(User user, Long productId);
+    Set<Long> getWishlistProductIds(User user);
 }
\ No newline at end of file
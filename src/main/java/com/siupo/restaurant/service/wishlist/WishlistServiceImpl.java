@@ -14,6 +14,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -77,6 +80,15 @@ public class WishlistServiceImpl implements WishlistService {
                 .orElse(false);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> getWishlistProductIds(User user) {
+        if (user == null || user.getId() == null) {
+            return Set.of();
+        }
+        return new HashSet<>(wishlistItemRepository.findProductIdsByUserId(user.getId()));
+    }
+
     @Transactional
     protected Wishlist createWishlistForUser(User user) {
         Wishlist wishlist = Wishlist.builder()
@@ -0,0 +1,44 @@
+package com.siupo.restaurant.util;
+
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Vị trí của bản ghi cuối trang theo khoá (createdAt, id), sắp xếp giảm dần.
+ * Client chỉ nhận chuỗi token đã encode, không cần biết cấu trúc bên trong.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Cursor của trang đầu tiên: đứng trước mọi bản ghi
+     */
+    public static KeysetCursor first() {
+        return new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    }
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return first();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BadRequestException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
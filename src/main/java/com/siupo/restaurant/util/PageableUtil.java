@@ -1,17 +1,51 @@
 package com.siupo.restaurant.util;
 
+import com.siupo.restaurant.dto.response.CursorPageResponse;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import java.util.List;
+import java.util.function.Function;
+
 public final class PageableUtil {
     private PageableUtil() {}
 
+    private static final int MAX_KEYSET_SIZE = 100;
+
     public static Pageable create(int page, int size, String sortBy) {
         Sort sort = parseSort(sortBy);
         return PageRequest.of(page, size, sort);
     }
 
+    /**
+     * Giới hạn cho truy vấn keyset: lấy dư 1 bản ghi để biết còn trang sau hay không.
+     * Thứ tự (createdAt DESC, id DESC) nằm sẵn trong câu query.
+     */
+    public static Pageable keysetLimit(int size) {
+        return PageRequest.of(0, normalizeKeysetSize(size) + 1);
+    }
+
+    public static int normalizeKeysetSize(int size) {
+        return Math.max(1, Math.min(size, MAX_KEYSET_SIZE));
+    }
+
+    public static <E, R> CursorPageResponse<R> toCursorPage(List<E> rows, int size,
+                                                           Function<E, KeysetCursor> cursorOf,
+                                                           Function<E, R> mapper,
+                                                           Long totalElements) {
+        int pageSize = normalizeKeysetSize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+        return CursorPageResponse.<R>builder()
+                .content(page.stream().map(mapper).toList())
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .totalElements(totalElements)
+                .build();
+    }
+
     private static Sort parseSort(String sortBy) {
         if (sortBy == null || sortBy.isBlank()) {
             return Sort.by(Sort.Direction.ASC, "id");
@@ -0,0 +1,77 @@
+package com.siupo.restaurant.service.mail;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailTemplateTest {
+
+    @Test
+    void rendersPlaceholdersBetweenStaticSegments() {
+        MailTemplate template = MailTemplate.compile("otp", "<p>Xin chào {{ name }}, mã: <b>{{otp}}</b></p>");
+
+        assertThat(render(template, Map.of("name", "An", "otp", "123456")))
+                .isEqualTo("<p>Xin chào An, mã: <b>123456</b></p>");
+        assertThat(template.getStaticLength()).isEqualTo("<p>Xin chào , mã: <b></b></p>".length());
+    }
+
+    @Test
+    void placeholderMayRepeatAndSitAtTheEdges() {
+        MailTemplate template = MailTemplate.compile("edge", "{{a}}-{{a}}-{{b}}");
+
+        assertThat(render(template, Map.of("a", "x", "b", "y"))).isEqualTo("x-x-y");
+    }
+
+    @Test
+    void templateWithoutPlaceholdersRendersAsIs() {
+        MailTemplate template = MailTemplate.compile("plain", "<p>Cảm ơn</p>");
+
+        assertThat(render(template, Map.of())).isEqualTo("<p>Cảm ơn</p>");
+    }
+
+    @Test
+    void valuesAreHtmlEscaped() {
+        MailTemplate template = MailTemplate.compile("escape", "<p>{{name}}</p>");
+
+        assertThat(render(template, Map.of("name", "<script>alert('x')</script> & \"y\"")))
+                .isEqualTo("<p>&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; &quot;y&quot;</p>");
+    }
+
+    @Test
+    void rendersAppendToTheExistingBuffer() {
+        MailTemplate template = MailTemplate.compile("append", "[{{v}}]");
+        StringBuilder out = new StringBuilder("prefix:");
+
+        template.renderTo(out, Map.of("v", "1"));
+
+        assertThat(out).hasToString("prefix:[1]");
+    }
+
+    @Test
+    void rejectsMalformedTemplates() {
+        assertThatThrownBy(() -> MailTemplate.compile("bad", "<p>{{name</p>"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unclosed placeholder");
+        assertThatThrownBy(() -> MailTemplate.compile("bad", "<p>{{ }}</p>"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Empty placeholder");
+    }
+
+    @Test
+    void missingValueFailsInsteadOfRenderingABlank() {
+        MailTemplate template = MailTemplate.compile("otp", "{{otp}}");
+
+        assertThatThrownBy(() -> render(template, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{otp}}");
+    }
+
+    private static String render(MailTemplate template, Map<String, String> values) {
+        StringBuilder out = new StringBuilder();
+        template.renderTo(out, values);
+        return out.toString();
+    }
+}
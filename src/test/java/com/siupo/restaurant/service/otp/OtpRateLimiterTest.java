@@ -0,0 +1,106 @@
+package com.siupo.restaurant.service.otp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis giả lập bằng ConcurrentHashMap cho INCR/GET/MGET
+ */
+class OtpRateLimiterTest {
+    private static final Duration WINDOW = Duration.ofMinutes(15);
+    // Cửa sổ rất dài: luôn đang ở đầu cửa sổ số 0 nên cửa sổ trước (-1) có trọng số gần 1
+    private static final Duration LONG_WINDOW = Duration.ofDays(3_650_000);
+
+    private final Map<String, String> store = new ConcurrentHashMap<>();
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private OtpRateLimiter rateLimiter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.expire(anyString(), any(Duration.class))).thenReturn(true);
+        when(valueOperations.increment(anyString())).thenAnswer(invocation -> Long.valueOf(
+                store.merge(invocation.getArgument(0), "1",
+                        (current, one) -> Long.toString(Long.parseLong(current) + 1))));
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> store.get(invocation.<String>getArgument(0)));
+        when(valueOperations.multiGet(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).stream().map(store::get).toList());
+        rateLimiter = new OtpRateLimiter(redisTemplate);
+    }
+
+    @Test
+    void allowsUpToTheLimitThenRejects() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("send:email", "a@x.vn", 3, LONG_WINDOW)).isTrue();
+        }
+
+        assertThat(rateLimiter.tryAcquire("send:email", "a@x.vn", 3, LONG_WINDOW)).isFalse();
+        // Lần bị từ chối vẫn được đếm
+        assertThat(store.get("otp:rate:send:email:a@x.vn:0")).isEqualTo("4");
+    }
+
+    @Test
+    void countsAreKeptPerScopeAndId() {
+        assertThat(rateLimiter.tryAcquire("send:email", "a@x.vn", 1, WINDOW)).isTrue();
+
+        assertThat(rateLimiter.tryAcquire("send:email", "b@x.vn", 1, WINDOW)).isTrue();
+        assertThat(rateLimiter.tryAcquire("verify:email", "a@x.vn", 1, WINDOW)).isTrue();
+        assertThat(rateLimiter.tryAcquire("send:email", "a@x.vn", 1, WINDOW)).isFalse();
+    }
+
+    @Test
+    void previousWindowStillCountsTowardsTheLimit() {
+        store.put("otp:rate:verify:ip:10.0.0.1:-1", "10");
+
+        assertThat(rateLimiter.tryAcquire("verify:ip", "10.0.0.1", 10, LONG_WINDOW)).isFalse();
+        assertThat(rateLimiter.isBlocked("verify:ip", "10.0.0.1", 10, LONG_WINDOW)).isTrue();
+    }
+
+    @Test
+    void isBlockedDoesNotConsumeAnAttempt() {
+        assertThat(rateLimiter.tryAcquire("send:ip", "10.0.0.2", 2, LONG_WINDOW)).isTrue();
+
+        assertThat(rateLimiter.isBlocked("send:ip", "10.0.0.2", 2, LONG_WINDOW)).isFalse();
+        assertThat(rateLimiter.isBlocked("send:ip", "10.0.0.2", 2, LONG_WINDOW)).isFalse();
+        assertThat(store.get("otp:rate:send:ip:10.0.0.2:0")).isEqualTo("1");
+
+        assertThat(rateLimiter.tryAcquire("send:ip", "10.0.0.2", 2, LONG_WINDOW)).isTrue();
+        assertThat(rateLimiter.isBlocked("send:ip", "10.0.0.2", 2, LONG_WINDOW)).isTrue();
+    }
+
+    @Test
+    void firstIncrementSetsExpiryOfTwoWindows() {
+        rateLimiter.tryAcquire("send:email", "a@x.vn", 5, WINDOW);
+        rateLimiter.tryAcquire("send:email", "a@x.vn", 5, WINDOW);
+
+        verify(redisTemplate, times(1)).expire(anyString(), eq(WINDOW.multipliedBy(2)));
+    }
+
+    @Test
+    void failsOpenWhenRedisIsDown() {
+        when(valueOperations.increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        when(valueOperations.multiGet(anyCollection())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(rateLimiter.tryAcquire("send:email", "a@x.vn", 1, WINDOW)).isTrue();
+        assertThat(rateLimiter.isBlocked("send:email", "a@x.vn", 1, WINDOW)).isFalse();
+    }
+}
@@ -0,0 +1,138 @@
+package com.siupo.restaurant.service.table;
+
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.model.TableEntity;
+import com.siupo.restaurant.repository.PlaceTableForCustomerRepository;
+import com.siupo.restaurant.repository.PlaceTableForGuestRepository;
+import com.siupo.restaurant.repository.TableRepository;
+import com.siupo.restaurant.repository.TableSlotClaimRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TableAvailabilityEngineTest {
+    private TableAvailabilityEngine engine;
+    private LocalDate day;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TableRepository tableRepository = mock(TableRepository.class);
+        when(tableRepository.findAll()).thenReturn(List.of(
+                TableEntity.builder().id(1L).tableNumber("Bàn 1").seat(4).build(),
+                TableEntity.builder().id(2L).tableNumber("Bàn 2").seat(6).build()));
+        engine = new TableAvailabilityEngine(tableRepository,
+                mock(PlaceTableForCustomerRepository.class),
+                mock(PlaceTableForGuestRepository.class),
+                mock(TableSlotClaimRepository.class),
+                mock(ObjectProvider.class),
+                Duration.ofHours(2),
+                Duration.ofMinutes(30),
+                60,
+                false);
+        engine.rebuild();
+        day = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    void cellsCoverTheWholeBookingOnTheStepGrid() {
+        assertThat(engine.cellsOf(day.atTime(18, 15))).containsExactly(
+                day.atTime(18, 0), day.atTime(18, 30), day.atTime(19, 0), day.atTime(19, 30), day.atTime(20, 0));
+        assertThat(engine.cellsOf(day.atTime(18, 0))).hasSize(4);
+    }
+
+    @Test
+    void tablesAreListedSmallestFirst() {
+        assertThat(engine.findAvailableTables(2, day.atTime(12, 0)))
+                .extracting(TableAvailabilityEngine.TableSlot::id)
+                .containsExactly(1L, 2L);
+        assertThat(engine.findAvailableTables(5, day.atTime(12, 0)))
+                .extracting(TableAvailabilityEngine.TableSlot::id)
+                .containsExactly(2L);
+    }
+
+    @Test
+    void pendingHoldMakesTheTableUnavailable() {
+        engine.occupy("G:1", 1L, day.atTime(18, 0), LocalDateTime.now().plusHours(1));
+
+        assertThat(engine.findAvailableTables(2, day.atTime(19, 0)))
+                .extracting(TableAvailabilityEngine.TableSlot::id)
+                .containsExactly(2L);
+    }
+
+    @Test
+    void bookingsSharingAGridCellConflict() {
+        engine.occupy("C:1", 1L, day.atTime(18, 15), null);
+        engine.occupy("C:2", 2L, day.atTime(18, 15), null);
+
+        // 20:15 không chồng giờ với 18:15-20:15 nhưng dùng chung ô 20:00
+        assertThat(engine.hasAvailableTable(2, day.atTime(20, 15))).isFalse();
+        assertThat(engine.hasAvailableTable(2, day.atTime(20, 30))).isTrue();
+    }
+
+    @Test
+    void expiredHoldCountsAsFree() {
+        engine.occupy("G:1", 1L, day.atTime(18, 0), LocalDateTime.now().minusMinutes(1));
+
+        assertThat(engine.findAvailableTables(2, day.atTime(18, 0)))
+                .extracting(TableAvailabilityEngine.TableSlot::id)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void releaseFreesEveryCellOfTheBooking() {
+        engine.occupy("C:1", 1L, day.atTime(18, 0), null);
+        engine.occupy("C:2", 2L, day.atTime(18, 0), null);
+        assertThat(engine.hasAvailableTable(2, day.atTime(19, 0))).isFalse();
+
+        engine.release("C:1", day.atTime(18, 0));
+
+        assertThat(engine.hasAvailableTable(2, day.atTime(19, 0))).isTrue();
+    }
+
+    @Test
+    void reassigningABookingMovesItsCells() {
+        engine.occupy("C:1", 1L, day.atTime(18, 0), LocalDateTime.now().plusHours(1));
+        engine.occupy("C:1", 2L, day.atTime(18, 0), null);
+
+        assertThat(engine.findAvailableTables(2, day.atTime(18, 0)))
+                .extracting(TableAvailabilityEngine.TableSlot::id)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void rejectsDatesOutsideTheBookingWindowAndEmptyParties() {
+        LocalDate today = LocalDate.now();
+
+        assertThatThrownBy(() -> engine.checkBookable(2, today.minusDays(1)))
+                .isInstanceOf(BadRequestException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.BOOKING_DATE_OUT_OF_RANGE);
+        assertThatThrownBy(() -> engine.checkBookable(2, today.plusDays(61)))
+                .extracting("errorCode").isEqualTo(ErrorCode.BOOKING_DATE_OUT_OF_RANGE);
+        assertThatThrownBy(() -> engine.checkBookable(0, today))
+                .extracting("errorCode").isEqualTo(ErrorCode.INVALID_GUEST_COUNT);
+        engine.checkBookable(1, today.plusDays(60));
+    }
+
+    @Test
+    void rejectsStartTimesOutsideOpeningHours() {
+        assertThatThrownBy(() -> engine.checkBookable(2, day.atTime(7, 30)))
+                .extracting("errorCode").isEqualTo(ErrorCode.BOOKING_OUTSIDE_OPENING_HOURS);
+        assertThatThrownBy(() -> engine.checkBookable(2, day.atTime(23, 0)))
+                .extracting("errorCode").isEqualTo(ErrorCode.BOOKING_OUTSIDE_OPENING_HOURS);
+        engine.checkBookable(2, day.atTime(8, 0));
+        engine.checkBookable(2, day.atTime(21, 30));
+    }
+}
@@ -0,0 +1,168 @@
+package com.siupo.restaurant.service.table;
+
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.repository.TableSlotClaimRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Repository giả lập unique (table_id, slot_start) bằng ConcurrentHashMap.putIfAbsent,
+ * tương đương INSERT IGNORE trả về 0 khi ô đã có booking khác giữ.
+ */
+class TableSlotClaimEngineTest {
+    private static final LocalDateTime STARTED_AT = LocalDate.now().plusDays(1).atTime(18, 0);
+    private static final List<LocalDateTime> CELLS = List.of(
+            STARTED_AT, STARTED_AT.plusMinutes(30), STARTED_AT.plusMinutes(60), STARTED_AT.plusMinutes(90));
+
+    private final Map<String, String> claims = new ConcurrentHashMap<>();
+    private TableSlotClaimRepository claimRepository;
+    private TableAvailabilityEngine availabilityEngine;
+    private TableSlotClaimEngine claimEngine;
+
+    @BeforeEach
+    void setUp() {
+        claimRepository = mock(TableSlotClaimRepository.class);
+        when(claimRepository.insertIgnore(any(), any(), anyString(), any(), any())).thenAnswer(invocation ->
+                claims.putIfAbsent(cellKey(invocation.getArgument(0), invocation.getArgument(1)),
+                        invocation.getArgument(2)) == null ? 1 : 0);
+        when(claimRepository.deleteByBookingKey(anyString())).thenAnswer(invocation -> {
+            String bookingKey = invocation.getArgument(0);
+            int before = claims.size();
+            claims.values().removeIf(bookingKey::equals);
+            return before - claims.size();
+        });
+
+        availabilityEngine = mock(TableAvailabilityEngine.class);
+        when(availabilityEngine.cellsOf(STARTED_AT)).thenReturn(CELLS);
+        when(availabilityEngine.findAvailableTables(anyInt(), eq(STARTED_AT))).thenReturn(List.of(
+                new TableAvailabilityEngine.TableSlot(1L, "Bàn 1", 4),
+                new TableAvailabilityEngine.TableSlot(2L, "Bàn 2", 6)));
+
+        claimEngine = new TableSlotClaimEngine(claimRepository, availabilityEngine,
+                mock(ApplicationEventPublisher.class), Duration.ofHours(12));
+    }
+
+    @Test
+    void holdClaimsEveryCellOfTheFirstFreeTable() {
+        Long tableId = claimEngine.hold("C:1", 2, STARTED_AT);
+
+        assertThat(tableId).isEqualTo(1L);
+        for (LocalDateTime cell : CELLS) {
+            assertThat(claims).containsEntry(cellKey(1L, cell), "C:1");
+        }
+        verify(availabilityEngine).occupy(eq("C:1"), eq(1L), eq(STARTED_AT), any(LocalDateTime.class));
+    }
+
+    @Test
+    void holdMovesOnWhenAnotherBookingOwnsACell() {
+        // Booking khác giữ ô cuối của bàn 1: các ô đầu vừa chèn phải được trả lại
+        claims.put(cellKey(1L, CELLS.get(3)), "G:9");
+
+        Long tableId = claimEngine.hold("C:1", 2, STARTED_AT);
+
+        assertThat(tableId).isEqualTo(2L);
+        assertThat(claims.entrySet())
+                .filteredOn(entry -> entry.getKey().startsWith("1|"))
+                .extracting(Map.Entry::getValue)
+                .containsOnly("G:9");
+    }
+
+    @Test
+    void holdFailsWhenEveryTableIsTaken() {
+        claims.put(cellKey(1L, CELLS.get(0)), "G:8");
+        claims.put(cellKey(2L, CELLS.get(2)), "G:9");
+
+        assertThatThrownBy(() -> claimEngine.hold("C:1", 2, STARTED_AT))
+                .isInstanceOf(BadRequestException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.NO_TABLE_AVAILABLE);
+        assertThat(claims).doesNotContainValue("C:1");
+        verify(availabilityEngine, never()).occupy(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void confirmKeepsTheHeldTable() {
+        when(claimRepository.makePermanent(eq("C:1"), any())).thenReturn(CELLS.size());
+        when(claimRepository.findTableIdByBookingKey("C:1")).thenReturn(2L);
+
+        assertThat(claimEngine.confirm("C:1", 2, STARTED_AT)).isEqualTo(2L);
+        verify(claimRepository, never()).insertIgnore(any(), any(), anyString(), any(), any());
+        verify(availabilityEngine).occupy("C:1", 2L, STARTED_AT, null);
+    }
+
+    @Test
+    void confirmReclaimsWhenTheHoldHasExpired() {
+        claims.put(cellKey(2L, CELLS.get(0)), "C:1");
+        when(claimRepository.makePermanent(eq("C:1"), any())).thenReturn(1);
+
+        assertThat(claimEngine.confirm("C:1", 2, STARTED_AT)).isEqualTo(1L);
+        verify(claimRepository).insertIgnore(eq(1L), eq(CELLS.get(0)), eq("C:1"), isNull(), any());
+        assertThat(claims).doesNotContainKey(cellKey(2L, CELLS.get(0)));
+        verify(availabilityEngine).release("C:1", STARTED_AT);
+    }
+
+    @Test
+    void concurrentHoldsNeverShareATable() throws Exception {
+        int bookings = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(bookings);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<Long>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < bookings; i++) {
+                String bookingKey = "G:" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return claimEngine.hold(bookingKey, 2, STARTED_AT);
+                    } catch (BadRequestException e) {
+                        rejected.incrementAndGet();
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Long> tables = new ArrayList<>();
+            for (Future<Long> result : results) {
+                Long tableId = result.get(10, TimeUnit.SECONDS);
+                if (tableId != null) {
+                    tables.add(tableId);
+                }
+            }
+
+            assertThat(tables).containsExactlyInAnyOrder(1L, 2L);
+            assertThat(rejected.get()).isEqualTo(bookings - 2);
+            for (long tableId : List.of(1L, 2L)) {
+                String owner = claims.get(cellKey(tableId, CELLS.get(0)));
+                for (LocalDateTime cell : CELLS) {
+                    assertThat(claims).containsEntry(cellKey(tableId, cell), owner);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String cellKey(Long tableId, LocalDateTime cell) {
+        return tableId + "|" + cell;
+    }
+}
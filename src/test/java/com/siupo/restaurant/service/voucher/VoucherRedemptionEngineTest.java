@@ -0,0 +1,90 @@
+package com.siupo.restaurant.service.voucher;
+
+import com.siupo.restaurant.exception.base.ErrorCode;
+import com.siupo.restaurant.exception.business.BadRequestException;
+import com.siupo.restaurant.repository.VoucherRepository;
+import com.siupo.restaurant.repository.VoucherUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * VoucherRepository giả lập UPDATE có điều kiện bằng compare-and-set trên usedCount; chỉ kiểm tra nhánh xử lý
+ * của engine, tính đúng đắn khi tranh chấp thuộc về câu UPDATE ... WHERE used_count < usage_limit trên DB
+ */
+class VoucherRedemptionEngineTest {
+    private static final long VOUCHER_ID = 7L;
+    private static final int USAGE_LIMIT = 5;
+
+    private final AtomicInteger usedCount = new AtomicInteger();
+    private VoucherRepository voucherRepository;
+    private VoucherUsageRepository voucherUsageRepository;
+    private VoucherRedemptionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        voucherRepository = mock(VoucherRepository.class);
+        voucherUsageRepository = mock(VoucherUsageRepository.class);
+        when(voucherRepository.tryReserveUsage(VOUCHER_ID)).thenAnswer(invocation -> {
+            while (true) {
+                int current = usedCount.get();
+                if (current >= USAGE_LIMIT) {
+                    return 0;
+                }
+                if (usedCount.compareAndSet(current, current + 1)) {
+                    return 1;
+                }
+            }
+        });
+        when(voucherRepository.releaseUsage(VOUCHER_ID)).thenAnswer(invocation ->
+                usedCount.getAndUpdate(current -> current > 0 ? current - 1 : 0) > 0 ? 1 : 0);
+        engine = new VoucherRedemptionEngine(voucherRepository, voucherUsageRepository);
+    }
+
+    @Test
+    void reserveFailsOnceTheLimitIsReached() {
+        for (int i = 0; i < USAGE_LIMIT; i++) {
+            engine.reserve(VOUCHER_ID);
+        }
+
+        assertThatThrownBy(() -> engine.reserve(VOUCHER_ID))
+                .isInstanceOf(BadRequestException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+        assertThat(usedCount.get()).isEqualTo(USAGE_LIMIT);
+    }
+
+    @Test
+    void releaseReturnsTheUsageOnlyWhenTheOrderHadOne() {
+        engine.reserve(VOUCHER_ID);
+        when(voucherUsageRepository.deleteByOrderId(100L)).thenReturn(1, 0);
+
+        engine.release(VOUCHER_ID, 100L);
+        engine.release(VOUCHER_ID, 100L);
+
+        assertThat(usedCount.get()).isZero();
+        verify(voucherRepository, times(1)).releaseUsage(VOUCHER_ID);
+    }
+
+    @Test
+    void reconcileOnlyRewritesMismatchedCountsAgainstTheObservedValue() {
+        when(voucherRepository.findAllUsedCounts()).thenReturn(List.of(
+                new Object[]{1L, 3},
+                new Object[]{2L, 2},
+                new Object[]{3L, 1}));
+        when(voucherUsageRepository.countGroupByVoucher()).thenReturn(List.of(
+                new Object[]{1L, 3L},
+                new Object[]{2L, 1L}));
+
+        engine.reconcile();
+
+        verify(voucherRepository).reconcileUsedCount(2L, 2, 1);
+        verify(voucherRepository).reconcileUsedCount(3L, 1, 0);
+        verify(voucherRepository, never()).reconcileUsedCount(eq(1L), anyInt(), anyInt());
+    }
+}